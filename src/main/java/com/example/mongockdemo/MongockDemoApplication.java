@@ -3,8 +3,10 @@ package com.example.mongockdemo;
 import io.mongock.runner.springboot.EnableMongock;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @EnableMongock
 public class MongockDemoApplication {
     public static void main(String[] args) {
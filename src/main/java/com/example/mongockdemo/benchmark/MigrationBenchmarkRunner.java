@@ -0,0 +1,231 @@
+package com.example.mongockdemo.benchmark;
+
+import com.example.mongockdemo.config.BenchmarkProperties;
+import com.example.mongockdemo.config.GeneratorProperties;
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.generator.ProductGenerator;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.runner.ChangeUnitCatalog;
+import com.example.mongockdemo.migration.runner.ChangeUnitTemplates;
+import com.example.mongockdemo.migration.support.BulkLoader;
+import com.example.mongockdemo.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Runs every change unit's {@code @Execution}, then every {@code @RollbackExecution} in reverse order,
+ * against a freshly seeded scratch database for each of {@code benchmark.sizes}, and writes docs/sec,
+ * round trips, bytes over the wire and p50/p99 command latency to {@code benchmark.output} as JSON.
+ * Active with the {@code benchmark} profile (see application-benchmark.properties).
+ *
+ * <p>Change units are invoked directly, without Mongock's lock or changelog, so the numbers are the
+ * change unit's own cost. {@code migration.*} settings apply, e.g. {@code --migration.chunked=true}.
+ */
+@Component
+@Profile("benchmark")
+public class MigrationBenchmarkRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationBenchmarkRunner.class);
+
+    private final BenchmarkProperties properties;
+    private final GeneratorProperties generatorProperties;
+    private final MigrationProperties migrationProperties;
+    private final MongoProperties mongoProperties;
+    private final ChangeUnitCatalog catalog;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+    public record Result(String changeUnit, String phase, long size, String outcome, double seconds,
+                         long documents, double docsPerSecond, long roundTrips, long bytesSent,
+                         long bytesReceived, double p50Millis, double p99Millis) {
+    }
+
+    public MigrationBenchmarkRunner(BenchmarkProperties properties, GeneratorProperties generatorProperties,
+                                    MigrationProperties migrationProperties, MongoProperties mongoProperties,
+                                    ChangeUnitCatalog catalog, ObjectMapper objectMapper, Environment environment) {
+        this.properties = properties;
+        this.generatorProperties = generatorProperties;
+        this.migrationProperties = migrationProperties;
+        this.mongoProperties = mongoProperties;
+        this.catalog = catalog;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (properties.getDatabase().equals(mongoProperties.getMongoClientDatabase())) {
+            throw new IllegalStateException("benchmark.database must not be the application database, it is dropped");
+        }
+
+        WireStats wire = new WireStats();
+        MongoClientSettings settings = MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(mongoProperties.determineUri()))
+            .addCommandListener(wire)
+            .build();
+        List<Result> results = new ArrayList<>();
+        try (MongoClient client = MongoClients.create(settings)) {
+            MongoDatabaseFactory databaseFactory = new SimpleMongoClientDatabaseFactory(client, properties.getDatabase());
+            for (long size : properties.getSizes()) {
+                results.addAll(benchmark(new MongoTemplate(databaseFactory), databaseFactory, wire, size));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("migration", migrationProperties);
+        report.put("results", results);
+        Files.createDirectories(properties.getOutput().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(properties.getOutput().toFile(), report);
+        log.info("✓ Benchmark results written to {}", properties.getOutput().toAbsolutePath());
+    }
+
+    private List<Result> benchmark(MongoTemplate mongoTemplate, MongoDatabaseFactory databaseFactory,
+                                   WireStats wire, long size) {
+        mongoTemplate.getDb().drop();
+        seed(mongoTemplate, size);
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MigrationMetrics metrics = new MigrationMetrics(registry);
+        Map<Class<?>, Object> dependencies = Map.of(
+            MongoTemplate.class, mongoTemplate,
+            MongoDatabaseFactory.class, databaseFactory,
+            MigrationProperties.class, migrationProperties,
+            MigrationMetrics.class, metrics,
+            ChangeUnitTemplates.class, new ChangeUnitTemplates(databaseFactory, mongoTemplate.getConverter()),
+            // Reads the scratch database's (empty) changelog, so fusion is planned as on a cold bootstrap
+            ChangeUnitCatalog.class, new ChangeUnitCatalog(mongoTemplate, environment));
+
+        List<Class<?>> changeUnits = catalog.changeUnits();
+        List<Object> instances = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+        for (Class<?> type : changeUnits) {
+            Object instance = instantiate(type);
+            instances.add(instance);
+            Result result = measure(instance, Execution.class, "execution", size, dependencies, registry, wire);
+            results.add(result);
+            if (!"success".equals(result.outcome())) {
+                // Later change units would run against a state that never exists in production
+                return reported(results);
+            }
+        }
+        for (int i = instances.size() - 1; i >= 0; i--) {
+            results.add(measure(instances.get(i), RollbackExecution.class, "rollback", size, dependencies, registry, wire));
+        }
+        return reported(results);
+    }
+
+    private void seed(MongoTemplate mongoTemplate, long size) {
+        MongoCollection<Document> products = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class));
+        ProductGenerator generator = new ProductGenerator(generatorProperties.getSeed(), generatorProperties.getRatingCoverage());
+        new BulkLoader(products, generatorProperties.getBatchSize(), products.getWriteConcern(), ChangeUnitMetrics.NOOP)
+            .load(Stream.generate(generator::next).limit(size))
+            .requireOnlyDuplicates();
+        log.info("Seeded {} products into {}", size, properties.getDatabase());
+    }
+
+    private Result measure(Object changeUnit, Class<? extends Annotation> phaseAnnotation, String phase, long size,
+                           Map<Class<?>, Object> dependencies, MeterRegistry registry, WireStats wire) {
+        String id = changeUnit.getClass().getAnnotation(ChangeUnit.class).id();
+        Method method = annotatedMethod(changeUnit.getClass(), phaseAnnotation);
+        Object[] arguments = new Object[method.getParameterCount()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = dependencies.get(method.getParameterTypes()[i]);
+            if (arguments[i] == null) {
+                throw new IllegalStateException("No benchmark dependency for " + method.getParameterTypes()[i].getName()
+                    + " in " + changeUnit.getClass().getSimpleName());
+            }
+        }
+
+        double documentsBefore = documents(registry, id);
+        wire.reset();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            method.invoke(changeUnit, arguments);
+        } catch (InvocationTargetException e) {
+            outcome = "failure: " + e.getCause();
+            log.error("{} {} failed", id, phase, e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        WireStats.Snapshot stats = wire.snapshot();
+        long documents = Math.round(documents(registry, id) - documentsBefore);
+
+        Result result = new Result(id, phase, size, outcome, seconds, documents, documents / seconds,
+            stats.roundTrips(), stats.bytesSent(), stats.bytesReceived(), stats.p50Millis(), stats.p99Millis());
+        log.info("  - {} {} @{}: {} docs in {}s ({} docs/sec), {} round trips, p99 {}ms", id, phase, size,
+            documents, String.format("%.2f", seconds), Math.round(result.docsPerSecond()), stats.roundTrips(),
+            String.format("%.1f", stats.p99Millis()));
+        return result;
+    }
+
+    private List<Result> reported(List<Result> results) {
+        if (properties.getChangeUnits().isEmpty()) {
+            return results;
+        }
+        return results.stream().filter(result -> properties.getChangeUnits().contains(result.changeUnit())).toList();
+    }
+
+    private static double documents(MeterRegistry registry, String changeUnitId) {
+        double documents = 0;
+        for (String name : List.of("migration.documents.read", "migration.documents.written")) {
+            Counter counter = registry.find(name).tag("changeUnit", changeUnitId).counter();
+            documents += counter == null ? 0 : counter.count();
+        }
+        return documents;
+    }
+
+    private static Method annotatedMethod(Class<?> type, Class<? extends Annotation> annotation) {
+        for (Method method : type.getMethods()) {
+            if (method.isAnnotationPresent(annotation)) {
+                return method;
+            }
+        }
+        throw new IllegalStateException(type.getSimpleName() + " has no @" + annotation.getSimpleName() + " method");
+    }
+
+    private static Object instantiate(Class<?> type) {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+        }
+    }
+}
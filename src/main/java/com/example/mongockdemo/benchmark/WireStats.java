@@ -0,0 +1,81 @@
+package com.example.mongockdemo.benchmark;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Driver command listener counting round trips, BSON bytes sent and received, and per-command latency.
+ * Byte counts are the encoded command and reply sizes, which excludes wire protocol headers and compression.
+ */
+class WireStats implements CommandListener {
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final List<Long> latenciesNanos = new ArrayList<>();
+
+    record Snapshot(long roundTrips, long bytesSent, long bytesReceived, double p50Millis, double p99Millis) {
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        roundTrips.incrementAndGet();
+        bytesSent.addAndGet(size(event.getCommand()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        bytesReceived.addAndGet(size(event.getResponse()));
+        record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    synchronized void reset() {
+        roundTrips.set(0);
+        bytesSent.set(0);
+        bytesReceived.set(0);
+        latenciesNanos.clear();
+    }
+
+    synchronized Snapshot snapshot() {
+        List<Long> sorted = new ArrayList<>(latenciesNanos);
+        sorted.sort(null);
+        return new Snapshot(roundTrips.get(), bytesSent.get(), bytesReceived.get(),
+            percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99));
+    }
+
+    private synchronized void record(long nanos) {
+        latenciesNanos.add(nanos);
+    }
+
+    private static double percentileMillis(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private static long size(BsonDocument document) {
+        if (document instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        return new RawBsonDocument(document, CODEC).getByteBuffer().remaining();
+    }
+}
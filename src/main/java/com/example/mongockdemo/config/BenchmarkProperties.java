@@ -0,0 +1,34 @@
+package com.example.mongockdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "benchmark")
+public class BenchmarkProperties {
+
+    // Scratch database, dropped and reseeded for every size; must not be the application database
+    private String database = "mongock_benchmark";
+
+    // Seeded product counts to benchmark at, e.g. 100000,1000000
+    private List<Long> sizes = new ArrayList<>(List.of(100_000L));
+
+    // Change unit ids to report; empty reports all. Every change unit still runs to keep the state realistic
+    private List<String> changeUnits = new ArrayList<>();
+
+    private Path output = Path.of("target/benchmark/migrations.json");
+
+    public String getDatabase() { return database; }
+    public void setDatabase(String database) { this.database = database; }
+
+    public List<Long> getSizes() { return sizes; }
+    public void setSizes(List<Long> sizes) { this.sizes = sizes; }
+
+    public List<String> getChangeUnits() { return changeUnits; }
+    public void setChangeUnits(List<String> changeUnits) { this.changeUnits = changeUnits; }
+
+    public Path getOutput() { return output; }
+    public void setOutput(Path output) { this.output = output; }
+}
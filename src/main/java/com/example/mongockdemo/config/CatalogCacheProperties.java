@@ -0,0 +1,48 @@
+package com.example.mongockdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "catalog.cache")
+public class CatalogCacheProperties {
+
+    // Watch the products collection so writes from other instances invalidate the caches
+    private boolean changeStream = true;
+
+    // Without a change stream (standalone mongod, or while it reconnects) cached entries expire after this
+    private Duration fallbackTtl = Duration.ofSeconds(30);
+
+    // Wait before reopening a change stream that failed
+    private Duration retryInterval = Duration.ofSeconds(5);
+
+    private final Products products = new Products();
+
+    public boolean isChangeStream() { return changeStream; }
+    public void setChangeStream(boolean changeStream) { this.changeStream = changeStream; }
+
+    public Duration getFallbackTtl() { return fallbackTtl; }
+    public void setFallbackTtl(Duration fallbackTtl) { this.fallbackTtl = fallbackTtl; }
+
+    public Duration getRetryInterval() { return retryInterval; }
+    public void setRetryInterval(Duration retryInterval) { this.retryInterval = retryInterval; }
+
+    public Products getProducts() { return products; }
+
+    public static class Products {
+        // Products cached by id, least recently read evicted first; ids that were not found are cached
+        // for the shorter negative-ttl so a later insert with that id shows up soon even without a stream
+        private int maxSize = 10000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private Duration negativeTtl = Duration.ofMinutes(1);
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+        public Duration getNegativeTtl() { return negativeTtl; }
+        public void setNegativeTtl(Duration negativeTtl) { this.negativeTtl = negativeTtl; }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.mongockdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "export")
+public class ExportProperties {
+
+    // Products per getMore of the export cursor; only one batch is held in memory at a time
+    private int cursorBatchSize = 1000;
+
+    // Gzip the export when the client sends Accept-Encoding: gzip
+    private boolean gzip = true;
+
+    // Bytes buffered before a write to the response (and the gzip stream)
+    private int bufferSize = 64 * 1024;
+
+    public int getCursorBatchSize() { return cursorBatchSize; }
+    public void setCursorBatchSize(int cursorBatchSize) { this.cursorBatchSize = cursorBatchSize; }
+
+    public boolean isGzip() { return gzip; }
+    public void setGzip(boolean gzip) { this.gzip = gzip; }
+
+    public int getBufferSize() { return bufferSize; }
+    public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+}
@@ -0,0 +1,35 @@
+package com.example.mongockdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "generator")
+public class GeneratorProperties {
+
+    // Number of synthetic products and the seed they are derived from; same seed and count, same documents
+    private long count = 1_000_000;
+    private long seed = 42;
+
+    // Documents per unordered insertMany
+    private int batchSize = 5000;
+
+    // Share of products that get a rating; the rest are left for the 006 backfill to fill in
+    private double ratingCoverage = 0.8;
+
+    // Drop the products collection first (its indexes and validator go with it)
+    private boolean drop = false;
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public double getRatingCoverage() { return ratingCoverage; }
+    public void setRatingCoverage(double ratingCoverage) { this.ratingCoverage = ratingCoverage; }
+
+    public boolean isDrop() { return drop; }
+    public void setDrop(boolean drop) { this.drop = drop; }
+}
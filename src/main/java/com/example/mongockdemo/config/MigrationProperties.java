@@ -0,0 +1,158 @@
+package com.example.mongockdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "migration")
+public class MigrationProperties {
+
+    // When true, data migrations walk the collection in _id ranges instead of one updateMany
+    private boolean chunked = false;
+    private int chunkSize = 10000;
+
+    // Backfills read _ids with this cursor batch size and write unordered bulks of bulk-size operations
+    private int cursorBatchSize = 10000;
+    private int bulkSize = 5000;
+    private Duration progressInterval = Duration.ofSeconds(10);
+
+    // Number of _id partitions processed concurrently by data migrations; 1 keeps a single cursor
+    private int parallelism = 1;
+
+    private final DryRun dryRun = new DryRun();
+    private final SchemaPrecheck schemaPrecheck = new SchemaPrecheck();
+    private final Index index = new Index();
+    private final Background background = new Background();
+    private final FastPath fastPath = new FastPath();
+    private final BulkLoad bulkLoad = new BulkLoad();
+    private final History history = new History();
+
+    public boolean isChunked() { return chunked; }
+    public void setChunked(boolean chunked) { this.chunked = chunked; }
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+    public int getCursorBatchSize() { return cursorBatchSize; }
+    public void setCursorBatchSize(int cursorBatchSize) { this.cursorBatchSize = cursorBatchSize; }
+
+    public int getBulkSize() { return bulkSize; }
+    public void setBulkSize(int bulkSize) { this.bulkSize = bulkSize; }
+
+    public Duration getProgressInterval() { return progressInterval; }
+    public void setProgressInterval(Duration progressInterval) { this.progressInterval = progressInterval; }
+
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+    public DryRun getDryRun() { return dryRun; }
+
+    public SchemaPrecheck getSchemaPrecheck() { return schemaPrecheck; }
+
+    public Index getIndex() { return index; }
+
+    public Background getBackground() { return background; }
+
+    public FastPath getFastPath() { return fastPath; }
+
+    public BulkLoad getBulkLoad() { return bulkLoad; }
+
+    public History getHistory() { return history; }
+
+    public static class DryRun {
+        // Opt-in: write probe-documents into probe-database to measure the insert and update rates duration
+        // estimates are based on. The probe writes to the live cluster, so it is off unless asked for
+        private boolean probe = false;
+        private String probeDatabase = "mongock_dry_run_probe";
+        private int probeDocuments = 20000;
+
+        public boolean isProbe() { return probe; }
+        public void setProbe(boolean probe) { this.probe = probe; }
+
+        public String getProbeDatabase() { return probeDatabase; }
+        public void setProbeDatabase(String probeDatabase) { this.probeDatabase = probeDatabase; }
+
+        public int getProbeDocuments() { return probeDocuments; }
+        public void setProbeDocuments(int probeDocuments) { this.probeDocuments = probeDocuments; }
+    }
+
+    public static class SchemaPrecheck {
+        public enum Action { ABORT, QUARANTINE }
+
+        // Existing documents allowed to violate a tightened validator; above this the migration aborts.
+        // Tolerated violators are left in place (ABORT) or moved to <collection>_quarantine (QUARANTINE)
+        private long maxViolations = 0;
+        private Action action = Action.ABORT;
+        private int sampleSize = 10;
+
+        public long getMaxViolations() { return maxViolations; }
+        public void setMaxViolations(long maxViolations) { this.maxViolations = maxViolations; }
+
+        public Action getAction() { return action; }
+        public void setAction(Action action) { this.action = action; }
+
+        public int getSampleSize() { return sampleSize; }
+        public void setSampleSize(int sampleSize) { this.sampleSize = sampleSize; }
+    }
+
+    public static class Index {
+        // How often running index builds are polled via currentOp, and how long startup waits for critical ones
+        private Duration pollInterval = Duration.ofSeconds(5);
+        private Duration criticalTimeout = Duration.ofMinutes(30);
+        private final Recovery recovery = new Recovery();
+
+        public Duration getPollInterval() { return pollInterval; }
+        public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+
+        public Duration getCriticalTimeout() { return criticalTimeout; }
+        public void setCriticalTimeout(Duration criticalTimeout) { this.criticalTimeout = criticalTimeout; }
+
+        public Recovery getRecovery() { return recovery; }
+
+        public static class Recovery {
+            // Restart background index builds an earlier process left unfinished, whether or not Mongock runs
+            private boolean enabled = true;
+
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        }
+    }
+
+    public static class Background {
+        // Only @BlockingChangeUnit change units run before startup completes; the rest run afterwards
+        private boolean enabled = false;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    }
+
+    public static class FastPath {
+        // Skip Mongock at boot when the recorded change-unit fingerprint matches; read by MigrationFastPath
+        // before the context exists, so this property only documents the setting for binding and IDEs
+        private boolean enabled = true;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    }
+
+    public static class BulkLoad {
+        // Seed and import change units insert unordered batches of batch-size documents with this write
+        // concern (a WriteConcern name: w1, majority, ...), or their template's if that is stricter
+        private int batchSize = 1000;
+        private String writeConcern = "majority";
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public String getWriteConcern() { return writeConcern; }
+        public void setWriteConcern(String writeConcern) { this.writeConcern = writeConcern; }
+    }
+
+    public static class History {
+        // /api/migrations serves a cached snapshot and checks the changelog for changes at most this often
+        private Duration refreshInterval = Duration.ofSeconds(5);
+
+        public Duration getRefreshInterval() { return refreshInterval; }
+        public void setRefreshInterval(Duration refreshInterval) { this.refreshInterval = refreshInterval; }
+    }
+}
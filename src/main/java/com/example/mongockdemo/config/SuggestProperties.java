@@ -0,0 +1,43 @@
+package com.example.mongockdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "suggest")
+public class SuggestProperties {
+
+    // Keep an in-memory index of product names (and descriptions) for /api/products/suggest
+    private boolean enabled = true;
+    private boolean indexDescription = true;
+
+    // Products per batch while the index is built from the collection
+    private int cursorBatchSize = 5000;
+
+    // Suggestions returned by default, and at most
+    private int limit = 10;
+    private int maxLimit = 50;
+
+    // Bounds the work per request: terms a trailing prefix expands to, and products scored
+    private int maxPrefixTerms = 64;
+    private int maxCandidates = 10000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isIndexDescription() { return indexDescription; }
+    public void setIndexDescription(boolean indexDescription) { this.indexDescription = indexDescription; }
+
+    public int getCursorBatchSize() { return cursorBatchSize; }
+    public void setCursorBatchSize(int cursorBatchSize) { this.cursorBatchSize = cursorBatchSize; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public int getMaxLimit() { return maxLimit; }
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+    public int getMaxPrefixTerms() { return maxPrefixTerms; }
+    public void setMaxPrefixTerms(int maxPrefixTerms) { this.maxPrefixTerms = maxPrefixTerms; }
+
+    public int getMaxCandidates() { return maxCandidates; }
+    public void setMaxCandidates(int maxCandidates) { this.maxCandidates = maxCandidates; }
+}
@@ -0,0 +1,22 @@
+package com.example.mongockdemo.controller;
+
+import com.example.mongockdemo.migration.runner.MigrationHistory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/migrations")
+public class MigrationRestController {
+
+    private final MigrationHistory migrationHistory;
+
+    public MigrationRestController(MigrationHistory migrationHistory) {
+        this.migrationHistory = migrationHistory;
+    }
+
+    @GetMapping
+    public MigrationHistory.Snapshot getMigrations() {
+        return migrationHistory.snapshot();
+    }
+}
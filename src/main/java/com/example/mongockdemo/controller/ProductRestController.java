@@ -1,25 +1,82 @@
 package com.example.mongockdemo.controller;
 
+import com.example.mongockdemo.config.ExportProperties;
 import com.example.mongockdemo.model.Product;
+import com.example.mongockdemo.model.ProductPage;
+import com.example.mongockdemo.model.ProductSuggestion;
 import com.example.mongockdemo.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductRestController {
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ProductService productService;
+    private final ExportProperties exportProperties;
+    private final ObjectWriter productWriter;
 
-    public ProductRestController(ProductService productService) {
+    public ProductRestController(ProductService productService, ExportProperties exportProperties,
+                                 ObjectMapper objectMapper) {
         this.productService = productService;
+        this.exportProperties = exportProperties;
+        this.productWriter = objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<List<Product>> getAllProducts(@RequestParam(required = false) String after,
+                                                        @RequestParam(required = false) Integer limit) {
+        return page(null, after, limit);
+    }
+
+    /**
+     * The whole catalog, or one category, as NDJSON in _id order. Products are written as the cursor
+     * returns them, so memory stays at one cursor batch plus the write buffer however large the
+     * catalog is. Gzipped when the client accepts it.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) String category,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = exportProperties.isGzip() && acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = response -> {
+            OutputStream target = gzip ? new GZIPOutputStream(response, exportProperties.getBufferSize()) : response;
+            try (Stream<Product> products = productService.streamProducts(category);
+                 OutputStream out = new BufferedOutputStream(target, exportProperties.getBufferSize());
+                 JsonGenerator generator = productWriter.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                for (Product product : (Iterable<Product>) products::iterator) {
+                    productWriter.writeValue(generator, product);
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     @GetMapping("/{id}")
@@ -30,13 +87,32 @@ public class ProductRestController {
     }
 
     @GetMapping("/category/{category}")
-    public List<Product> getProductsByCategory(@PathVariable String category) {
-        return productService.getProductsByCategory(category);
+    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category,
+                                                               @RequestParam(required = false) String after,
+                                                               @RequestParam(required = false) Integer limit) {
+        return page(category, after, limit);
     }
 
     @GetMapping("/search")
-    public List<Product> searchProducts(@RequestParam String q) {
-        return productService.searchProducts(q);
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam String q,
+                                                        @RequestParam(required = false) Integer page,
+                                                        @RequestParam(required = false) Integer limit) {
+        Slice<Product> results = productService.searchProducts(q, page, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (results.hasNext()) {
+            response.header(HttpHeaders.LINK, nextLink("page", String.valueOf(results.getNumber() + 1)));
+        }
+        return response.body(results.getContent());
+    }
+
+    /** Search-as-you-type from the in-memory index; 503 while the index is still being built. */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggestProducts(@RequestParam String q,
+                                                                   @RequestParam(required = false) Integer limit) {
+        if (!productService.isSuggestReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(productService.suggestProducts(q, limit));
     }
 
     @GetMapping("/categories")
@@ -63,4 +139,59 @@ public class ProductRestController {
         productService.deleteProduct(id);
         return ResponseEntity.ok().build();
     }
+
+    // The body stays a plain array; the next page is announced in a Link header and X-Next-Cursor
+    private ResponseEntity<List<Product>> page(String category, String after, Integer limit) {
+        ProductPage page;
+        try {
+            page = productService.getProducts(category, after, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(HttpHeaders.LINK, nextLink("after", page.nextCursor()))
+                .header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed as {@code gzip} (or {@code x-gzip}) with a
+     * non-zero q-value, or else covered by a non-zero {@code *}. {@code gzip;q=0} refuses it.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        double effective = gzip != null ? gzip : wildcard != null ? wildcard : 0;
+        return effective > 0;
+    }
+
+    private static String nextLink(String param, String value) {
+        String next = ServletUriComponentsBuilder.fromCurrentRequest().replaceQueryParam(param, value).toUriString();
+        return "<" + next + ">; rel=\"next\"";
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.mongockdemo.controller;
 
+import com.example.mongockdemo.model.ProductPage;
 import com.example.mongockdemo.service.ProductService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,12 +17,19 @@ public class WebController {
     }
 
     @GetMapping("/")
-    public String index(Model model, @RequestParam(required = false) String category) {
+    public String index(Model model, @RequestParam(required = false) String category,
+                        @RequestParam(required = false) String after) {
+        ProductPage page;
+        try {
+            page = productService.getProducts(category, after, null);
+        } catch (IllegalArgumentException e) {
+            // A mangled cursor in the address bar just shows the first page
+            page = productService.getProducts(category, null, null);
+        }
+        model.addAttribute("products", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
         if (category != null && !category.isEmpty()) {
-            model.addAttribute("products", productService.getProductsByCategory(category));
             model.addAttribute("selectedCategory", category);
-        } else {
-            model.addAttribute("products", productService.getAllProducts());
         }
         model.addAttribute("categories", productService.getCategories());
         return "index";
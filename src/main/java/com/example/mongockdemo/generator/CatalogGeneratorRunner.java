@@ -0,0 +1,62 @@
+package com.example.mongockdemo.generator;
+
+import com.example.mongockdemo.config.GeneratorProperties;
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.support.BulkLoader;
+import com.example.mongockdemo.migration.support.ProgressReporter;
+import com.example.mongockdemo.model.Product;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Fills the products collection with {@code generator.count} synthetic products for load and migration
+ * testing. Active with the {@code generate} profile, which also disables Mongock (see
+ * application-generate.properties).
+ */
+@Component
+@Profile("generate")
+public class CatalogGeneratorRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogGeneratorRunner.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final GeneratorProperties properties;
+    private final MigrationProperties migrationProperties;
+
+    public CatalogGeneratorRunner(MongoTemplate mongoTemplate, GeneratorProperties properties,
+                                  MigrationProperties migrationProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.migrationProperties = migrationProperties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String collectionName = mongoTemplate.getCollectionName(Product.class);
+        if (properties.isDrop()) {
+            mongoTemplate.dropCollection(collectionName);
+        }
+        MongoCollection<Document> products = mongoTemplate.getCollection(collectionName);
+        ProductGenerator generator = new ProductGenerator(properties.getSeed(), properties.getRatingCoverage());
+        ProgressReporter progress = new ProgressReporter("generated products", properties.getCount(),
+            migrationProperties.getProgressInterval());
+
+        log.info("Generating {} products into {} (seed {})", properties.getCount(), collectionName, properties.getSeed());
+        BulkLoader.Result result = new BulkLoader(products, properties.getBatchSize(), products.getWriteConcern(),
+            ChangeUnitMetrics.NOOP)
+            .progress(progress)
+            .load(Stream.generate(generator::next).limit(properties.getCount()));
+        log.info("✓ Generated products: {}, {} already present, {} rejected", progress.summary(),
+            result.duplicates(), result.failed() - result.duplicates());
+    }
+}
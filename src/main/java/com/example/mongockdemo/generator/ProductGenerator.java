@@ -0,0 +1,133 @@
+package com.example.mongockdemo.generator;
+
+import com.example.mongockdemo.model.Product;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Date;
+import java.util.SplittableRandom;
+
+/**
+ * Produces synthetic product documents in the shape Spring Data writes for {@link Product} (price as a
+ * string, {@code _class} set). The sequence depends only on the seed, so two runs with the same seed and
+ * count produce identical collections, _ids included.
+ */
+public class ProductGenerator {
+
+    // Category skew, roughly what a general store sees; must stay within the validator's enum
+    private static final String[] CATEGORIES = {"Electronics", "Home", "Furniture", "Appliances", "Office"};
+    private static final double[] CATEGORY_WEIGHTS = {0.35, 0.25, 0.18, 0.14, 0.08};
+
+    // Median price per category; prices are log-normal around it
+    private static final double[] MEDIAN_PRICES = {250, 40, 300, 120, 20};
+
+    private static final String[][] NOUNS = {
+        {"Laptop", "Smartphone", "Monitor", "Keyboard", "Headphones", "Tablet", "Router", "Speaker", "Webcam", "Charger"},
+        {"Lamp", "Rug", "Curtain", "Vase", "Pillow", "Blanket", "Mirror", "Clock", "Candle", "Frame"},
+        {"Desk", "Chair", "Bookshelf", "Sofa", "Table", "Cabinet", "Bed Frame", "Stool", "Dresser", "Bench"},
+        {"Coffee Maker", "Toaster", "Blender", "Kettle", "Microwave", "Air Fryer", "Vacuum", "Fan", "Heater", "Mixer"},
+        {"Notebook Set", "Pen Holder", "Stapler", "Desk Organizer", "Planner", "Whiteboard", "File Folder", "Label Maker", "Paper Tray", "Marker Set"},
+    };
+    private static final String[] ADJECTIVES = {
+        "Compact", "Premium", "Classic", "Ergonomic", "Wireless", "Portable", "Deluxe", "Smart", "Modern", "Eco",
+        "Pro", "Mini", "Ultra", "Adjustable", "Foldable", "Vintage", "Heavy-Duty", "Slim", "Quiet", "Rugged",
+    };
+    private static final String[] WORDS = (
+        "durable design quality everyday use easy setup includes warranty lightweight materials finish premium "
+        + "comfortable stylish reliable performance energy efficient compact storage versatile modern home office "
+        + "adjustable sturdy build long lasting battery fast charging noise reduction simple cleaning great value "
+        + "perfect gift space saving natural wood steel frame soft touch high capacity low maintenance").split(" ");
+
+    // Fixed origin so timestamps, and the _ids derived from them, do not depend on when the generator runs
+    private static final long ORIGIN_SECONDS = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+    private static final long SPREAD_SECONDS = 3L * 365 * 24 * 3600;
+
+    private final SplittableRandom random;
+    private final double ratingCoverage;
+
+    public ProductGenerator(long seed, double ratingCoverage) {
+        this.random = new SplittableRandom(seed);
+        this.ratingCoverage = ratingCoverage;
+    }
+
+    public Document next() {
+        int category = category();
+        long createdSeconds = ORIGIN_SECONDS - random.nextLong(SPREAD_SECONDS);
+        Date createdAt = Date.from(Instant.ofEpochSecond(createdSeconds));
+
+        Document product = new Document("_id", objectId(createdSeconds))
+            .append("name", name(category))
+            .append("description", description())
+            .append("price", price(category))
+            .append("category", CATEGORIES[category])
+            .append("stockQuantity", stock());
+        if (random.nextDouble() < ratingCoverage) {
+            product.append("rating", rating());
+        }
+        return product
+            .append("createdAt", createdAt)
+            .append("updatedAt", Date.from(Instant.ofEpochSecond(createdSeconds + random.nextLong(30L * 24 * 3600))))
+            .append("_class", Product.class.getName());
+    }
+
+    private int category() {
+        double roll = random.nextDouble();
+        for (int i = 0; i < CATEGORY_WEIGHTS.length - 1; i++) {
+            roll -= CATEGORY_WEIGHTS[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return CATEGORY_WEIGHTS.length - 1;
+    }
+
+    private String name(int category) {
+        String[] nouns = NOUNS[category];
+        return ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + nouns[random.nextInt(nouns.length)]
+            + " " + (char) ('A' + random.nextInt(26)) + random.nextInt(100, 1000);
+    }
+
+    /** Mostly a short sentence, occasionally a long paragraph, capped at the validator's 500 characters. */
+    private String description() {
+        int words = (int) Math.min(90, Math.max(2, Math.exp(2.2 + 0.8 * random.nextGaussian())));
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < words && description.length() < 480; i++) {
+            if (i > 0) {
+                description.append(' ');
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        description.setCharAt(0, Character.toUpperCase(description.charAt(0)));
+        return description.toString();
+    }
+
+    private String price(int category) {
+        double price = Math.max(0.99, MEDIAN_PRICES[category] * Math.exp(0.7 * random.nextGaussian()));
+        return BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    /** Out of stock for about 1 in 10 products, otherwise exponential around 60 and within 0..1000. */
+    private int stock() {
+        if (random.nextDouble() < 0.1) {
+            return 0;
+        }
+        return (int) Math.min(1000, 1 + Math.round(-60 * Math.log(1 - random.nextDouble())));
+    }
+
+    /** Skewed towards 4-5 stars with a small cluster of 1-star reviews, one decimal like the UI shows. */
+    private double rating() {
+        double rating = random.nextDouble() < 0.07 ? 1 + random.nextDouble() : 4.1 + 0.7 * random.nextGaussian();
+        return Math.round(Math.min(5, Math.max(0, rating)) * 10) / 10.0;
+    }
+
+    private ObjectId objectId(long createdSeconds) {
+        return new ObjectId(ByteBuffer.allocate(12)
+            .putInt((int) createdSeconds)
+            .putLong(random.nextLong())
+            .array());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.mongockdemo.migration;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import com.example.mongockdemo.migration.support.IndexManager;
+import com.example.mongockdemo.model.Product;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@BlockingChangeUnit
+@ChangeUnit(id = "add-category-keyset-index", order = "008", author = "admin")
+public class AddCategoryKeysetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AddCategoryKeysetIndex.class);
+
+    private static final Document CATEGORY_ID = new Document("category", 1).append("_id", 1);
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MongoDatabaseFactory databaseFactory,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            // Keyset pages of one category seek to (category, after) and read in _id order; until
+            // this index is ready the single-field category index serves them with an in-memory sort
+            String collection = mongoTemplate.getCollectionName(Product.class);
+            IndexManager indexes = new IndexManager(databaseFactory, unitMetrics, properties.getIndex().getPollInterval());
+            indexes.build(collection, CATEGORY_ID, false);
+            indexes.awaitCritical(properties.getIndex().getCriticalTimeout());
+
+            log.info("✓ Migration 008: Started keyset index build on {}", collection);
+            log.info("  - {category: 1, _id: 1}");
+        });
+    }
+
+    @RollbackExecution
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.rollback(() -> {
+            IndexManager.forget(mongoTemplate.getDb(), unitMetrics.getChangeUnitId());
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).dropIndex(CATEGORY_ID);
+            log.info("✓ Rollback 008: Category keyset index dropped");
+        });
+    }
+}
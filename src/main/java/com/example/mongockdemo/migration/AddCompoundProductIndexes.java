@@ -0,0 +1,60 @@
+package com.example.mongockdemo.migration;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import com.example.mongockdemo.migration.support.IndexManager;
+import com.example.mongockdemo.model.Product;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@BlockingChangeUnit
+@ChangeUnit(id = "add-compound-product-indexes", order = "007", author = "admin")
+public class AddCompoundProductIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(AddCompoundProductIndexes.class);
+
+    private static final Document CATEGORY_PRICE = new Document("category", 1).append("price", 1);
+    private static final Document CATEGORY_RATING = new Document("category", 1).append("rating", -1);
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MongoDatabaseFactory databaseFactory,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            // Category listings sorted by price or rating; the single-field category index still serves
+            // those queries meanwhile, so startup does not wait for these builds
+            String collection = mongoTemplate.getCollectionName(Product.class);
+            IndexManager indexes = new IndexManager(databaseFactory, unitMetrics, properties.getIndex().getPollInterval());
+            indexes.build(collection, CATEGORY_PRICE, false);
+            indexes.build(collection, CATEGORY_RATING, false);
+            indexes.awaitCritical(properties.getIndex().getCriticalTimeout());
+
+            log.info("✓ Migration 007: Started compound index builds on {}", collection);
+            log.info("  - {category: 1, price: 1} and {category: 1, rating: -1}");
+        });
+    }
+
+    @RollbackExecution
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.rollback(() -> {
+            IndexManager.forget(mongoTemplate.getDb(), unitMetrics.getChangeUnitId());
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).dropIndex(CATEGORY_PRICE);
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).dropIndex(CATEGORY_RATING);
+            log.info("✓ Rollback 007: Compound product indexes dropped");
+        });
+    }
+}
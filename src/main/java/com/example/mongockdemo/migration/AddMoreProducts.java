@@ -1,53 +1,77 @@
 package com.example.mongockdemo.migration;
 
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.support.BulkLoader;
 import com.example.mongockdemo.model.Product;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
 import io.mongock.api.annotations.ChangeUnit;
 import io.mongock.api.annotations.Execution;
 import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Date;
+import java.util.stream.Stream;
 
 @ChangeUnit(id = "add-more-products", order = "002", author = "admin")
 public class AddMoreProducts {
 
+    private static final Logger log = LoggerFactory.getLogger(AddMoreProducts.class);
+
     @Execution
-    public void execute(MongoTemplate mongoTemplate) {
-        List<Product> newProducts = Arrays.asList(
-            createProduct("Standing Desk", "Adjustable height desk", new BigDecimal("599.99"), "Furniture", 10),
-            createProduct("Monitor", "27-inch 4K monitor", new BigDecimal("449.99"), "Electronics", 18),
-            createProduct("Keyboard", "Mechanical gaming keyboard", new BigDecimal("129.99"), "Electronics", 35),
-            createProduct("Bookshelf", "5-tier wooden bookshelf", new BigDecimal("149.99"), "Furniture", 12)
-        );
-
-        mongoTemplate.insertAll(newProducts);
-        System.out.println("✓ Migration 002: Additional products added successfully");
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            Date now = new Date();
+            Stream<Document> newProducts = Stream.of(
+                createProduct("Standing Desk", "Adjustable height desk", new BigDecimal("599.99"), "Furniture", 10, now),
+                createProduct("Monitor", "27-inch 4K monitor", new BigDecimal("449.99"), "Electronics", 18, now),
+                createProduct("Keyboard", "Mechanical gaming keyboard", new BigDecimal("129.99"), "Electronics", 35, now),
+                createProduct("Bookshelf", "5-tier wooden bookshelf", new BigDecimal("149.99"), "Furniture", 12, now)
+            );
+
+            BulkLoader.Result result = new BulkLoader(mongoTemplate, mongoTemplate.getCollectionName(Product.class),
+                properties.getBulkLoad(), unitMetrics).load(newProducts).requireOnlyDuplicates();
+            log.info("✓ Migration 002: Additional products added successfully ({} inserted, {} already present)",
+                result.inserted(), result.duplicates());
+        });
     }
 
     @RollbackExecution
-    public void rollback(MongoTemplate mongoTemplate) {
-        Query query = new Query(Criteria.where("name").in(
-            "Standing Desk", "Monitor", "Keyboard", "Bookshelf"
-        ));
-        mongoTemplate.remove(query, Product.class);
-        System.out.println("✓ Rollback 002: Additional products removed");
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.rollback(() -> {
+            Query query = new Query(Criteria.where("name").in(
+                "Standing Desk", "Monitor", "Keyboard", "Bookshelf"
+            ));
+            unitMetrics.documentsWritten(mongoTemplate.remove(query, Product.class).getDeletedCount());
+            log.info("✓ Rollback 002: Additional products removed");
+        });
     }
 
-    private Product createProduct(String name, String description, BigDecimal price, 
-                                 String category, Integer stock) {
-        Product product = new Product();
-        product.setName(name);
-        product.setDescription(description);
-        product.setPrice(price);
-        product.setCategory(category);
-        product.setStockQuantity(stock);
-        product.setCreatedAt(LocalDateTime.now());
-        product.setUpdatedAt(LocalDateTime.now());
-        return product;
+    private Document createProduct(String name, String description, BigDecimal price,
+                                   String category, Integer stock, Date now) {
+        // The shape Spring Data writes for Product: price as a string, timestamps as dates, _class set.
+        // The _id is derived from the name, so a re-run after a partial load skips what is already there
+        return new Document("_id", BulkLoader.seedId(name))
+            .append("name", name)
+            .append("description", description)
+            .append("price", price.toPlainString())
+            .append("category", category)
+            .append("stockQuantity", stock)
+            .append("createdAt", now)
+            .append("updatedAt", now)
+            .append("_class", Product.class.getName());
     }
 }
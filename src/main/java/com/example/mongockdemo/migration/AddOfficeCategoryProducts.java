@@ -1,119 +1,95 @@
 package com.example.mongockdemo.migration;
 
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.runner.ChangeUnitTemplates;
+import com.example.mongockdemo.migration.schema.ProductSchemas;
+import com.example.mongockdemo.migration.schema.SchemaRegistry;
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import com.example.mongockdemo.migration.support.BulkLoader;
+import com.example.mongockdemo.migration.support.ChangeUnitOptions;
 import com.example.mongockdemo.model.Product;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
 import io.mongock.api.annotations.ChangeUnit;
 import io.mongock.api.annotations.Execution;
 import io.mongock.api.annotations.RollbackExecution;
 import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Date;
+import java.util.stream.Stream;
 
+// The validator change and the seed rows must survive a failover, so both wait for a majority
+@ChangeUnitOptions(writeConcern = "majority")
+@BlockingChangeUnit
 @ChangeUnit(id = "add-office-category-products", order = "005", author = "admin")
 public class AddOfficeCategoryProducts {
 
-    @Execution
-    public void execute(MongoTemplate mongoTemplate) {
-        Document validator = new Document("$jsonSchema", 
-            new Document()
-                .append("bsonType", "object")
-                .append("required", Arrays.asList("name", "price", "category", "stockQuantity"))
-                .append("properties", new Document()
-                    .append("name", new Document()
-                        .append("bsonType", "string")
-                        .append("minLength", 3)
-                        .append("maxLength", 100))
-                    .append("description", new Document()
-                        .append("bsonType", "string"))
-                    .append("price", new Document()
-                        .append("bsonType", Arrays.asList("decimal", "double", "string")))
-                    .append("category", new Document()
-                        .append("bsonType", "string")
-                        .append("enum", Arrays.asList("Electronics", "Furniture", "Appliances", "Office", "Home")))
-                    .append("stockQuantity", new Document()
-                        .append("bsonType", "int")
-                        .append("minimum", 0))
-                    .append("rating", new Document()
-                        .append("bsonType", "double")
-                        .append("minimum", 0)
-                        .append("maximum", 5))
-                )
-        );
+    private static final Logger log = LoggerFactory.getLogger(AddOfficeCategoryProducts.class);
 
-        mongoTemplate.getDb().runCommand(
-            new Document("collMod", "products")
-                .append("validator", validator)
-                .append("validationLevel", "moderate")
-                .append("validationAction", "error")
-        );
+    @Execution
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitTemplates templates,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            MongoTemplate majorityTemplate = templates.forChangeUnit(getClass(), mongoTemplate);
+            SchemaRegistry.apply(majorityTemplate, ProductSchemas.V2);
 
-        List<Product> officeProducts = Arrays.asList(
-            createProduct("Desk Lamp", "LED desk lamp with adjustable brightness", 
-                         new BigDecimal("34.99"), "Office", 50),
-            createProduct("Notebook Set", "Premium notebook set (5 pack)", 
-                         new BigDecimal("15.99"), "Office", 100),
-            createProduct("Pen Holder", "Wooden desk organizer", 
-                         new BigDecimal("12.99"), "Office", 60)
-        );
+            Date now = new Date();
+            Stream<Document> officeProducts = Stream.of(
+                createProduct("Desk Lamp", "LED desk lamp with adjustable brightness", 
+                             new BigDecimal("34.99"), "Office", 50, now),
+                createProduct("Notebook Set", "Premium notebook set (5 pack)", 
+                             new BigDecimal("15.99"), "Office", 100, now),
+                createProduct("Pen Holder", "Wooden desk organizer", 
+                             new BigDecimal("12.99"), "Office", 60, now)
+            );
 
-        mongoTemplate.insertAll(officeProducts);
+            BulkLoader.Result result = new BulkLoader(majorityTemplate, mongoTemplate.getCollectionName(Product.class),
+                properties.getBulkLoad(), unitMetrics).load(officeProducts).requireOnlyDuplicates();
         
-        System.out.println("✓ Migration 005: Added Office category products");
-        System.out.println("  - Updated schema validation to include Office category");
-        System.out.println("  - Added optional 'rating' field validation (0-5)");
-        System.out.println("  - Inserted 3 office products");
+            log.info("✓ Migration 005: Added Office category products");
+            log.info("  - Updated schema validation to include Office category");
+            log.info("  - Added optional 'rating' field validation (0-5)");
+            log.info("  - Inserted {} office products ({} already present)", result.inserted(), result.duplicates());
+        });
     }
 
     @RollbackExecution
-    public void rollback(MongoTemplate mongoTemplate) {
-        mongoTemplate.getDb().getCollection("products")
-            .deleteMany(new Document("category", "Office"));
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitTemplates templates,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.rollback(() -> {
+            MongoTemplate majorityTemplate = templates.forChangeUnit(getClass(), mongoTemplate);
+            unitMetrics.documentsWritten(majorityTemplate.getDb().getCollection("products")
+                .deleteMany(new Document("category", "Office")).getDeletedCount());
         
-        Document validator = new Document("$jsonSchema", 
-            new Document()
-                .append("bsonType", "object")
-                .append("required", Arrays.asList("name", "price", "category", "stockQuantity"))
-                .append("properties", new Document()
-                    .append("name", new Document()
-                        .append("bsonType", "string")
-                        .append("minLength", 3)
-                        .append("maxLength", 100))
-                    .append("description", new Document()
-                        .append("bsonType", "string"))
-                    .append("price", new Document()
-                        .append("bsonType", Arrays.asList("decimal", "double", "string")))
-                    .append("category", new Document()
-                        .append("bsonType", "string")
-                        .append("enum", Arrays.asList("Electronics", "Furniture", "Appliances")))
-                    .append("stockQuantity", new Document()
-                        .append("bsonType", "int")
-                        .append("minimum", 0))
-                )
-        );
-
-        mongoTemplate.getDb().runCommand(
-            new Document("collMod", "products")
-                .append("validator", validator)
-                .append("validationLevel", "moderate")
-                .append("validationAction", "error")
-        );
+            SchemaRegistry.apply(majorityTemplate, ProductSchemas.previous(ProductSchemas.V2));
         
-        System.out.println("✓ Rollback 005: Removed Office products and reverted schema");
+            log.info("✓ Rollback 005: Removed Office products and reverted schema");
+        });
     }
 
-    private Product createProduct(String name, String description, BigDecimal price, 
-                                 String category, Integer stock) {
-        Product product = new Product();
-        product.setName(name);
-        product.setDescription(description);
-        product.setPrice(price);
-        product.setCategory(category);
-        product.setStockQuantity(stock);
-        product.setCreatedAt(LocalDateTime.now());
-        product.setUpdatedAt(LocalDateTime.now());
-        return product;
+    private Document createProduct(String name, String description, BigDecimal price,
+                                   String category, Integer stock, Date now) {
+        // The shape Spring Data writes for Product: price as a string, timestamps as dates, _class set.
+        // The _id is derived from the name, so a re-run after a partial load skips what is already there
+        return new Document("_id", BulkLoader.seedId(name))
+            .append("name", name)
+            .append("description", description)
+            .append("price", price.toPlainString())
+            .append("category", category)
+            .append("stockQuantity", stock)
+            .append("createdAt", now)
+            .append("updatedAt", now)
+            .append("_class", Product.class.getName());
     }
 }
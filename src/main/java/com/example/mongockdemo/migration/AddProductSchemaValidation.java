@@ -1,67 +1,51 @@
 package com.example.mongockdemo.migration;
 
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.runner.ChangeUnitTemplates;
+import com.example.mongockdemo.migration.schema.ProductSchemas;
+import com.example.mongockdemo.migration.schema.SchemaRegistry;
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import com.example.mongockdemo.migration.support.ChangeUnitOptions;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
 import io.mongock.api.annotations.ChangeUnit;
 import io.mongock.api.annotations.Execution;
 import io.mongock.api.annotations.RollbackExecution;
-import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 
-import java.util.Arrays;
-
+// Schema changes must not be lost on failover, so the collMod waits for a majority
+@ChangeUnitOptions(writeConcern = "majority")
+@BlockingChangeUnit
 @ChangeUnit(id = "add-product-schema-validation", order = "004", author = "admin")
 public class AddProductSchemaValidation {
 
-    @Execution
-    public void execute(MongoTemplate mongoTemplate) {
-        Document validator = new Document("$jsonSchema", 
-            new Document()
-                .append("bsonType", "object")
-                .append("required", Arrays.asList("name", "price", "category", "stockQuantity"))
-                .append("properties", new Document()
-                    .append("name", new Document()
-                        .append("bsonType", "string")
-                        .append("description", "Product name must be a string and is required")
-                        .append("minLength", 3)
-                        .append("maxLength", 100))
-                    .append("description", new Document()
-                        .append("bsonType", "string")
-                        .append("description", "Product description must be a string"))
-                    .append("price", new Document()
-                        .append("bsonType", Arrays.asList("decimal", "double", "string"))
-                        .append("description", "Price must be a number and is required"))
-                    .append("category", new Document()
-                        .append("bsonType", "string")
-                        .append("description", "Category must be a string and is required")
-                        .append("enum", Arrays.asList("Electronics", "Furniture", "Appliances", "Office", "Home")))
-                    .append("stockQuantity", new Document()
-                        .append("bsonType", "int")
-                        .append("description", "Stock quantity must be an integer and is required")
-                        .append("minimum", 0))
-                )
-        );
+    private static final Logger log = LoggerFactory.getLogger(AddProductSchemaValidation.class);
 
-        mongoTemplate.getDb().runCommand(
-            new Document("collMod", "products")
-                .append("validator", validator)
-                .append("validationLevel", "moderate")
-                .append("validationAction", "error")
-        );
+    @Execution
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitTemplates templates,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        metrics.forChangeUnit(getClass()).execution(() -> {
+            SchemaRegistry.apply(templates.forChangeUnit(getClass(), mongoTemplate), ProductSchemas.V1);
 
-        System.out.println("✓ Migration 004: Schema validation added to products collection");
-        System.out.println("  - Required fields: name, price, category, stockQuantity");
-        System.out.println("  - Price must be >= 0");
-        System.out.println("  - Stock quantity must be >= 0");
-        System.out.println("  - Name must be 3-100 characters");
-        System.out.println("  - Category must be one of: Electronics, Furniture, Appliances, Office, Home");
+            log.info("✓ Migration 004: Schema validation added to products collection");
+            log.info("  - Required fields: name, price, category, stockQuantity");
+            log.info("  - Price must be >= 0");
+            log.info("  - Stock quantity must be >= 0");
+            log.info("  - Name must be 3-100 characters");
+            log.info("  - Category must be one of: Electronics, Furniture, Appliances, Office, Home");
+        });
     }
 
     @RollbackExecution
-    public void rollback(MongoTemplate mongoTemplate) {
-        mongoTemplate.getDb().runCommand(
-            new Document("collMod", "products")
-                .append("validator", new Document())
-                .append("validationLevel", "off")
-        );
-        System.out.println("✓ Rollback 004: Schema validation removed from products collection");
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitTemplates templates,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        metrics.forChangeUnit(getClass()).rollback(() -> {
+            SchemaRegistry.apply(templates.forChangeUnit(getClass(), mongoTemplate), ProductSchemas.previous(ProductSchemas.V1));
+            log.info("✓ Rollback 004: Schema validation removed from products collection");
+        });
     }
 }
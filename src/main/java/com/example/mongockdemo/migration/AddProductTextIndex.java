@@ -0,0 +1,59 @@
+package com.example.mongockdemo.migration;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import com.example.mongockdemo.migration.support.IndexManager;
+import com.example.mongockdemo.model.Product;
+import com.mongodb.client.model.IndexOptions;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@BlockingChangeUnit
+@ChangeUnit(id = "add-product-text-index", order = "009", author = "admin")
+public class AddProductTextIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AddProductTextIndex.class);
+
+    public static final String INDEX_NAME = "product_text";
+
+    private static final Document TEXT_KEYS = new Document("name", "text").append("description", "text");
+    // A name match outranks several description matches
+    private static final Document WEIGHTS = new Document("name", 10).append("description", 2);
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MongoDatabaseFactory databaseFactory,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            // $text queries fail without a text index, so search cannot be served before it is built
+            String collection = mongoTemplate.getCollectionName(Product.class);
+            IndexManager indexes = new IndexManager(databaseFactory, unitMetrics, properties.getIndex().getPollInterval());
+            indexes.build(collection, TEXT_KEYS, new IndexOptions().name(INDEX_NAME).weights(WEIGHTS)
+                .defaultLanguage("english"), true);
+            indexes.awaitCritical(properties.getIndex().getCriticalTimeout());
+
+            log.info("✓ Migration 009: Text index {} on {} (name weight 10, description 2)", INDEX_NAME, collection);
+        });
+    }
+
+    @RollbackExecution
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        metrics.forChangeUnit(getClass()).rollback(() -> {
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).dropIndex(INDEX_NAME);
+            log.info("✓ Rollback 009: Text index {} dropped", INDEX_NAME);
+        });
+    }
+}
@@ -1,116 +1,167 @@
 package com.example.mongockdemo.migration;
 
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.runner.ChangeUnitCatalog;
+import com.example.mongockdemo.migration.runner.ChangeUnitTemplates;
+import com.example.mongockdemo.migration.schema.ProductSchemas;
+import com.example.mongockdemo.migration.schema.SchemaRegistry;
+import com.example.mongockdemo.migration.support.ChangeUnitOptions;
+import com.example.mongockdemo.migration.support.EstimableChangeUnit;
+import com.example.mongockdemo.migration.support.FusibleChangeUnit;
+import com.example.mongockdemo.migration.support.PlannedOperation;
+import com.example.mongockdemo.migration.support.ProgressReporter;
+import com.example.mongockdemo.migration.support.SchemaPrecheck;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
 import io.mongock.api.annotations.ChangeUnit;
 import io.mongock.api.annotations.Execution;
 import io.mongock.api.annotations.RollbackExecution;
 import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 
-import java.util.Arrays;
-import java.util.Random;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
+// The backfill is redone from the last journaled checkpoint if w:1 writes are lost, so it does not need majority;
+// the validator step overrides this with majority
+@ChangeUnitOptions(writeConcern = "w1")
 @ChangeUnit(id = "add-rating-field-with-validation", order = "006", author = "admin")
-public class AddRatingFieldWithValidation {
+public class AddRatingFieldWithValidation extends FusibleChangeUnit implements EstimableChangeUnit {
+
+    private static final Logger log = LoggerFactory.getLogger(AddRatingFieldWithValidation.class);
+
+    @Override
+    public List<PlannedOperation> plannedOperations() {
+        return List.of(new PlannedOperation("products", new Document(), "rating backfill (full scan)",
+            PlannedOperation.Kind.BULK_UPDATE));
+    }
+
+    @Override
+    public String collection() {
+        return "products";
+    }
+
+    @Override
+    public Document filter() {
+        return new Document();
+    }
+
+    @Override
+    public Set<String> reads() {
+        return Set.of();
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of("rating");
+    }
+
+    @Override
+    public Document transform(Document product) {
+        return new Document("rating", randomRating());
+    }
 
     @Execution
-    public void execute(MongoTemplate mongoTemplate) {
-        Random random = new Random();
-        mongoTemplate.getDb().getCollection("products").find().forEach(doc -> {
-            double rating = 3.0 + random.nextDouble() * 2.0;
-            rating = Math.round(rating * 10.0) / 10.0;
-            
-            mongoTemplate.updateFirst(
-                new Query(org.springframework.data.mongodb.core.query.Criteria.where("_id").is(doc.get("_id"))),
-                new Update().set("rating", rating),
-                "products"
-            );
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitTemplates templates,
+                        @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitCatalog catalog,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            MongoTemplate backfillTemplate = templates.forChangeUnit(getClass(), mongoTemplate);
+            Optional<String> fusedInto = fusedInto(backfillTemplate);
+            String backfilled;
+            if (fusedInto.isPresent()) {
+                backfilled = "done in the fused pass of " + fusedInto.get();
+            } else {
+                List<FusibleChangeUnit> group = fusionGroup(catalog.pendingChangeUnits());
+                backfilled = group.size() > 1
+                    ? runFused(templates.forFusedPass(group, mongoTemplate), properties, group, unitMetrics)
+                        + " documents in a fused pass"
+                    : backfill(backfillTemplate, properties, unitMetrics);
+            }
+
+            // Strict validation applies to every later update, so find existing violators up front.
+            // Unlike the backfill, the validator change and any quarantine moves wait for a majority
+            MongoTemplate schemaTemplate = templates.forChangeUnit(getClass(), mongoTemplate, "majority");
+            if (!SchemaRegistry.isInstalled(schemaTemplate, ProductSchemas.V3)) {
+                SchemaPrecheck.enforce(schemaTemplate, "products", ProductSchemas.V3.jsonSchema(),
+                    properties.getSchemaPrecheck());
+                SchemaRegistry.apply(schemaTemplate, ProductSchemas.V3);
+            }
+
+            log.info("✓ Migration 006: Added rating field and stricter validation");
+            log.info("  - Added rating field to all existing products ({})", backfilled);
+            log.info("  - Rating is now required (0-5)");
+            log.info("  - Validation level changed to 'strict'");
+            log.info("  - Added maximum limits: price <= 10000, stock <= 1000, description <= 500 chars");
         });
+    }
+
+    private String backfill(MongoTemplate backfillTemplate, MigrationProperties properties, ChangeUnitMetrics unitMetrics) {
+        MongoCollection<Document> products = backfillTemplate.getCollection("products");
+        ProgressReporter progress = new ProgressReporter("rating backfill",
+            products.estimatedDocumentCount(), properties.getProgressInterval());
 
-        Document validator = new Document("$jsonSchema", 
-            new Document()
-                .append("bsonType", "object")
-                .append("required", Arrays.asList("name", "price", "category", "stockQuantity", "rating"))
-                .append("properties", new Document()
-                    .append("name", new Document()
-                        .append("bsonType", "string")
-                        .append("minLength", 3)
-                        .append("maxLength", 100))
-                    .append("description", new Document()
-                        .append("bsonType", "string")
-                        .append("maxLength", 500))
-                    .append("price", new Document()
-                        .append("bsonType", Arrays.asList("decimal", "double", "string")))
-                    .append("category", new Document()
-                        .append("bsonType", "string")
-                        .append("enum", Arrays.asList("Electronics", "Furniture", "Appliances", "Office", "Home")))
-                    .append("stockQuantity", new Document()
-                        .append("bsonType", "int")
-                        .append("minimum", 0)
-                        .append("maximum", 1000))
-                    .append("rating", new Document()
-                        .append("bsonType", "double")
-                        .append("minimum", 0)
-                        .append("maximum", 5))
-                )
-        );
-
-        mongoTemplate.getDb().runCommand(
-            new Document("collMod", "products")
-                .append("validator", validator)
-                .append("validationLevel", "strict")
-                .append("validationAction", "error")
-        );
-
-        System.out.println("✓ Migration 006: Added rating field and stricter validation");
-        System.out.println("  - Added rating field to all existing products");
-        System.out.println("  - Rating is now required (0-5)");
-        System.out.println("  - Validation level changed to 'strict'");
-        System.out.println("  - Added maximum limits: price <= 10000, stock <= 1000, description <= 500 chars");
+        // Only _ids are pulled; the unordered bulks are written while the cursor reads the next batch
+        processInPartitions(backfillTemplate, properties, "products", "execution", progress, unitMetrics,
+            (idRange, writer) -> {
+                long queued = 0;
+                try (MongoCursor<Document> cursor = products.find(idRange)
+                        .projection(new Document("_id", 1))
+                        .batchSize(properties.getCursorBatchSize())
+                        .iterator()) {
+                    while (cursor.hasNext()) {
+                        writer.updateOne(
+                            new Query(Criteria.where("_id").is(cursor.next().get("_id"))),
+                            new Update().set("rating", randomRating())
+                        );
+                        queued++;
+                    }
+                }
+                unitMetrics.documentsRead(queued);
+                return queued;
+            });
+        return progress.summary();
     }
 
     @RollbackExecution
-    public void rollback(MongoTemplate mongoTemplate) {
-        mongoTemplate.updateMulti(
-            new Query(),
-            new Update().unset("rating"),
-            "products"
-        );
-
-        Document validator = new Document("$jsonSchema", 
-            new Document()
-                .append("bsonType", "object")
-                .append("required", Arrays.asList("name", "price", "category", "stockQuantity"))
-                .append("properties", new Document()
-                    .append("name", new Document()
-                        .append("bsonType", "string")
-                        .append("minLength", 3)
-                        .append("maxLength", 100))
-                    .append("description", new Document()
-                        .append("bsonType", "string"))
-                    .append("price", new Document()
-                        .append("bsonType", Arrays.asList("decimal", "double", "string")))
-                    .append("category", new Document()
-                        .append("bsonType", "string")
-                        .append("enum", Arrays.asList("Electronics", "Furniture", "Appliances", "Office", "Home")))
-                    .append("stockQuantity", new Document()
-                        .append("bsonType", "int")
-                        .append("minimum", 0))
-                    .append("rating", new Document()
-                        .append("bsonType", "double")
-                        .append("minimum", 0)
-                        .append("maximum", 5))
-                )
-        );
-
-        mongoTemplate.getDb().runCommand(
-            new Document("collMod", "products")
-                .append("validator", validator)
-                .append("validationLevel", "moderate")
-                .append("validationAction", "error")
-        );
-
-        System.out.println("✓ Rollback 006: Removed rating field and reverted to moderate validation");
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitTemplates templates,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.rollback(() -> {
+            clearCheckpoints(mongoTemplate);
+            clearFusion(mongoTemplate);
+
+            // Relax validation first: the strict v3 validator rejects documents without a rating
+            SchemaRegistry.apply(templates.forChangeUnit(getClass(), mongoTemplate, "majority"),
+                ProductSchemas.previous(ProductSchemas.V3));
+
+            unitMetrics.documentsWritten(templates.forChangeUnit(getClass(), mongoTemplate).updateMulti(
+                new Query(),
+                new Update().unset("rating"),
+                "products"
+            ).getModifiedCount());
+
+            log.info("✓ Rollback 006: Removed rating field and reverted to moderate validation");
+        });
+    }
+
+    private static double randomRating() {
+        double rating = 3.0 + ThreadLocalRandom.current().nextDouble() * 2.0;
+        return Math.round(rating * 10.0) / 10.0;
     }
 }
@@ -1,56 +1,84 @@
 package com.example.mongockdemo.migration;
 
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import com.example.mongockdemo.migration.support.BulkLoader;
+import com.example.mongockdemo.migration.support.IndexManager;
 import com.example.mongockdemo.model.Product;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
 import io.mongock.api.annotations.ChangeUnit;
 import io.mongock.api.annotations.Execution;
 import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.index.Index;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Date;
+import java.util.stream.Stream;
 
+@BlockingChangeUnit
 @ChangeUnit(id = "initial-product-setup", order = "001", author = "admin")
 public class InitialProductSetup {
 
+    private static final Logger log = LoggerFactory.getLogger(InitialProductSetup.class);
+
     @Execution
-    public void execute(MongoTemplate mongoTemplate) {
-        mongoTemplate.indexOps(Product.class)
-                .ensureIndex(new Index().on("category", org.springframework.data.domain.Sort.Direction.ASC));
-        
-        mongoTemplate.indexOps(Product.class)
-                .ensureIndex(new Index().on("name", org.springframework.data.domain.Sort.Direction.ASC));
-
-        List<Product> initialProducts = Arrays.asList(
-            createProduct("Laptop", "High-performance laptop", new BigDecimal("1299.99"), "Electronics", 15),
-            createProduct("Smartphone", "Latest model smartphone", new BigDecimal("899.99"), "Electronics", 30),
-            createProduct("Desk Chair", "Ergonomic office chair", new BigDecimal("249.99"), "Furniture", 20),
-            createProduct("Coffee Maker", "Automatic coffee machine", new BigDecimal("89.99"), "Appliances", 40),
-            createProduct("Headphones", "Noise-canceling headphones", new BigDecimal("199.99"), "Electronics", 25)
-        );
-
-        mongoTemplate.insertAll(initialProducts);
-        System.out.println("✓ Migration 001: Initial products created successfully");
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MongoDatabaseFactory databaseFactory,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            // ProductService filters by category and looks up by name, so both are needed before serving
+            String collection = mongoTemplate.getCollectionName(Product.class);
+            IndexManager indexes = new IndexManager(databaseFactory, unitMetrics, properties.getIndex().getPollInterval());
+            indexes.build(collection, new Document("category", 1), true);
+            indexes.build(collection, new Document("name", 1), true);
+            indexes.awaitCritical(properties.getIndex().getCriticalTimeout());
+
+            Date now = new Date();
+            Stream<Document> initialProducts = Stream.of(
+                createProduct("Laptop", "High-performance laptop", new BigDecimal("1299.99"), "Electronics", 15, now),
+                createProduct("Smartphone", "Latest model smartphone", new BigDecimal("899.99"), "Electronics", 30, now),
+                createProduct("Desk Chair", "Ergonomic office chair", new BigDecimal("249.99"), "Furniture", 20, now),
+                createProduct("Coffee Maker", "Automatic coffee machine", new BigDecimal("89.99"), "Appliances", 40, now),
+                createProduct("Headphones", "Noise-canceling headphones", new BigDecimal("199.99"), "Electronics", 25, now)
+            );
+
+            BulkLoader.Result result = new BulkLoader(mongoTemplate, mongoTemplate.getCollectionName(Product.class),
+                properties.getBulkLoad(), unitMetrics).load(initialProducts).requireOnlyDuplicates();
+            log.info("✓ Migration 001: Initial products created successfully ({} inserted, {} already present)",
+                result.inserted(), result.duplicates());
+        });
     }
 
     @RollbackExecution
-    public void rollback(MongoTemplate mongoTemplate) {
-        mongoTemplate.dropCollection(Product.class);
-        System.out.println("✓ Rollback 001: Products collection dropped");
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        metrics.forChangeUnit(getClass()).rollback(() -> {
+            mongoTemplate.dropCollection(Product.class);
+            log.info("✓ Rollback 001: Products collection dropped");
+        });
     }
 
-    private Product createProduct(String name, String description, BigDecimal price, 
-                                 String category, Integer stock) {
-        Product product = new Product();
-        product.setName(name);
-        product.setDescription(description);
-        product.setPrice(price);
-        product.setCategory(category);
-        product.setStockQuantity(stock);
-        product.setCreatedAt(LocalDateTime.now());
-        product.setUpdatedAt(LocalDateTime.now());
-        return product;
+    private Document createProduct(String name, String description, BigDecimal price,
+                                   String category, Integer stock, Date now) {
+        // The shape Spring Data writes for Product: price as a string, timestamps as dates, _class set.
+        // The _id is derived from the name, so a re-run after a partial load skips what is already there
+        return new Document("_id", BulkLoader.seedId(name))
+            .append("name", name)
+            .append("description", description)
+            .append("price", price.toPlainString())
+            .append("category", category)
+            .append("stockQuantity", stock)
+            .append("createdAt", now)
+            .append("updatedAt", now)
+            .append("_class", Product.class.getName());
     }
 }
@@ -1,62 +1,199 @@
 package com.example.mongockdemo.migration;
 
-import com.example.mongockdemo.model.Product;
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.runner.ChangeUnitCatalog;
+import com.example.mongockdemo.migration.runner.ChangeUnitTemplates;
+import com.example.mongockdemo.migration.support.EstimableChangeUnit;
+import com.example.mongockdemo.migration.support.FieldSnapshot;
+import com.example.mongockdemo.migration.support.FusibleChangeUnit;
+import com.example.mongockdemo.migration.support.PlannedOperation;
+import com.example.mongockdemo.migration.support.ProgressReporter;
+import com.mongodb.client.MongoCollection;
+import io.changock.migration.api.annotations.NonLockGuarded;
+import io.changock.migration.api.annotations.NonLockGuardedType;
 import io.mongock.api.annotations.ChangeUnit;
 import io.mongock.api.annotations.Execution;
 import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @ChangeUnit(id = "update-electronics-prices", order = "003", author = "admin")
-public class UpdateElectronicsPrices {
+public class UpdateElectronicsPrices extends FusibleChangeUnit implements EstimableChangeUnit {
 
-    @Execution
-    public void execute(MongoTemplate mongoTemplate) {
-        Query query = new Query(Criteria.where("category").is("Electronics"));
-        
-        List<Product> electronics = mongoTemplate.find(query, Product.class);
-        
-        for (Product product : electronics) {
-            BigDecimal newPrice = product.getPrice().multiply(new BigDecimal("0.90"));
-            Update update = new Update()
-                .set("price", newPrice)
-                .set("updatedAt", LocalDateTime.now());
-            
-            mongoTemplate.updateFirst(
-                new Query(Criteria.where("_id").is(product.getId())),
-                update,
-                Product.class
-            );
+    private static final Logger log = LoggerFactory.getLogger(UpdateElectronicsPrices.class);
+
+    private static final Decimal128 DISCOUNT_FACTOR = new Decimal128(new BigDecimal("0.90"));
+    private static final Document ELECTRONICS = new Document("category", "Electronics");
+
+    // Set to the phase on every product that phase has repriced and unset once it completes, so a resumed
+    // phase skips what an interrupted attempt already changed. Only this unit writes it, unlike updatedAt
+    static final String RUN_FIELD = "priceDiscountRun";
+    static final String EXECUTION = "execution";
+    static final String ROLLBACK = "rollback";
+
+    @Override
+    public List<PlannedOperation> plannedOperations() {
+        return List.of(
+            new PlannedOperation("products", ELECTRONICS, "snapshot of price, updatedAt", PlannedOperation.Kind.INSERT),
+            new PlannedOperation("products", ELECTRONICS, "pipeline update of price", PlannedOperation.Kind.UPDATE));
+    }
+
+    @Override
+    public String collection() {
+        return "products";
+    }
+
+    @Override
+    public Document filter() {
+        return ELECTRONICS;
+    }
+
+    @Override
+    public Set<String> reads() {
+        return Set.of("category", "price", RUN_FIELD);
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of("price", "updatedAt", RUN_FIELD);
+    }
+
+    @Override
+    public Document transform(Document product) {
+        if (!"Electronics".equals(product.get("category")) || product.get("price") == null
+                || EXECUTION.equals(product.get(RUN_FIELD))) {
+            return new Document();
         }
-        
-        System.out.println("✓ Migration 003: Electronics prices updated (10% discount applied)");
+        // Same value as the server-side $multiply of $toDecimal(price) below. For string and Decimal128
+        // prices the scale matches too; a double price converts to its shortest decimal form here but
+        // to 15 significant digits with $toDecimal, so the stored scale can differ
+        BigDecimal price = new BigDecimal(product.get("price").toString());
+        return new Document("price", new Decimal128(price.multiply(DISCOUNT_FACTOR.bigDecimalValue())))
+            .append("updatedAt", new Date())
+            .append(RUN_FIELD, EXECUTION);
+    }
+
+    @Override
+    public void beforeTransform(MongoTemplate mongoTemplate) {
+        FieldSnapshot.capture(mongoTemplate, "products", ELECTRONICS,
+            FieldSnapshot.collectionFor(changeUnitId()), "price", "updatedAt");
+    }
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate,
+                        @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitTemplates templates,
+                        @NonLockGuarded(NonLockGuardedType.NONE) ChangeUnitCatalog catalog,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                        @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.execution(() -> {
+            Optional<String> fusedInto = fusedInto(mongoTemplate);
+            if (fusedInto.isPresent()) {
+                clearRunMarkers(mongoTemplate);
+                log.info("✓ Migration 003: Electronics prices already updated in the fused pass of {}", fusedInto.get());
+                return;
+            }
+
+            // Prices may still be stored as strings, so convert before multiplying server-side
+            Document discountedPrice = new Document("$multiply",
+                Arrays.asList(new Document("$toDecimal", "$price"), DISCOUNT_FACTOR));
+
+            long start = System.nanoTime();
+            beforeTransform(mongoTemplate);
+            List<FusibleChangeUnit> group = fusionGroup(catalog.pendingChangeUnits());
+            long updated = group.size() > 1
+                ? runFused(templates.forFusedPass(group, mongoTemplate), properties, group, unitMetrics)
+                : updatePrices(mongoTemplate, properties, unitMetrics, EXECUTION, discountedPrice);
+            clearRunMarkers(mongoTemplate);
+
+            log.info("✓ Migration 003: Electronics prices updated (10% discount applied)");
+            log.info("  - {} documents updated{}", updated, throughput(updated, start));
+        });
     }
 
     @RollbackExecution
-    public void rollback(MongoTemplate mongoTemplate) {
-        Query query = new Query(Criteria.where("category").is("Electronics"));
-        
-        List<Product> electronics = mongoTemplate.find(query, Product.class);
-        
-        for (Product product : electronics) {
-            BigDecimal originalPrice = product.getPrice().divide(new BigDecimal("0.90"), 2, java.math.RoundingMode.HALF_UP);
-            Update update = new Update()
-                .set("price", originalPrice)
-                .set("updatedAt", LocalDateTime.now());
-            
-            mongoTemplate.updateFirst(
-                new Query(Criteria.where("_id").is(product.getId())),
-                update,
-                Product.class
-            );
+    public void rollback(MongoTemplate mongoTemplate,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationProperties properties,
+                         @NonLockGuarded(NonLockGuardedType.NONE) MigrationMetrics metrics) {
+        ChangeUnitMetrics unitMetrics = metrics.forChangeUnit(getClass());
+        unitMetrics.rollback(() -> {
+            long start = System.nanoTime();
+            String snapshot = FieldSnapshot.collectionFor(changeUnitId());
+            long restored;
+            if (FieldSnapshot.exists(mongoTemplate, snapshot)) {
+                restored = FieldSnapshot.restore(mongoTemplate, "products", snapshot);
+                unitMetrics.documentsWritten(restored);
+            } else {
+                // Executed before snapshots were taken: recompute, which is only exact for untouched prices
+                log.warn("  - No snapshot {} found, reversing the discount arithmetically", snapshot);
+                Document originalPrice = new Document("$round", Arrays.asList(
+                    new Document("$divide", Arrays.asList(new Document("$toDecimal", "$price"), DISCOUNT_FACTOR)),
+                    2));
+                restored = updatePrices(mongoTemplate, properties, unitMetrics, ROLLBACK, originalPrice);
+            }
+            // Also drops the markers of an execution that failed before clearing them
+            clearRunMarkers(mongoTemplate);
+            clearCheckpoints(mongoTemplate);
+            clearFusion(mongoTemplate);
+
+            log.info("✓ Rollback 003: Electronics prices restored");
+            log.info("  - {} documents updated{}", restored, throughput(restored, start));
+        });
+    }
+
+    private long updatePrices(MongoTemplate mongoTemplate, MigrationProperties properties, ChangeUnitMetrics metrics,
+                              String phase, Document priceExpression) {
+        MongoCollection<Document> products = mongoTemplate.getCollection("products");
+        List<Document> pipeline = List.of(new Document("$set", new Document()
+            .append("price", priceExpression)
+            .append("updatedAt", "$$NOW")
+            .append(RUN_FIELD, phase)));
+        // A product already marked with this phase was repriced by an interrupted attempt, whether or not
+        // that attempt got to write its checkpoint
+        Document pending = pendingElectronics(phase);
+
+        if (!properties.isChunked()) {
+            long updated = products.updateMany(pending, pipeline).getModifiedCount();
+            metrics.documentsWritten(updated);
+            completePhase(mongoTemplate, phase);
+            return updated;
         }
-        
-        System.out.println("✓ Rollback 003: Electronics prices restored");
+
+        // Walk _id ranges so each updateMany only produces a bounded burst of oplog entries; the
+        // checkpoint saves re-reading completed ranges, the run marker keeps them from being repriced twice
+        ProgressReporter progress = new ProgressReporter("electronics prices " + phase,
+            products.estimatedDocumentCount(), properties.getProgressInterval());
+        return processInPartitions(mongoTemplate, properties, "products", phase, progress, metrics, (idRange, writer) -> {
+            long updated = products.updateMany(new Document("$and", List.of(idRange, pending)), pipeline).getModifiedCount();
+            metrics.documentsWritten(updated);
+            return updated;
+        });
+    }
+
+    static Document pendingElectronics(String phase) {
+        return new Document("category", "Electronics").append(RUN_FIELD, new Document("$ne", phase));
+    }
+
+    private void clearRunMarkers(MongoTemplate mongoTemplate) {
+        mongoTemplate.getCollection("products").updateMany(
+            new Document(RUN_FIELD, new Document("$exists", true)),
+            new Document("$unset", new Document(RUN_FIELD, "")));
+    }
+
+    private String throughput(long documents, long startNanos) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+        return String.format(" in %.2fs (%.0f docs/sec)", seconds, documents / seconds);
     }
 }
@@ -0,0 +1,119 @@
+package com.example.mongockdemo.migration.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/** Meters for one change unit, all tagged with {@code changeUnit=<id>}. */
+public class ChangeUnitMetrics {
+
+    /** Records into a throwaway registry, for code paths that run outside of Mongock. */
+    public static final ChangeUnitMetrics NOOP =
+        new ChangeUnitMetrics(new SimpleMeterRegistry(), "none", "default", null);
+
+    private final MeterRegistry registry;
+    private final String changeUnitId;
+    // Declared via @ChangeUnitOptions; tags the write meters so w1 and majority throughput can be compared
+    private final String writeConcern;
+    private final MigrationMetrics parent;
+    private final Counter documentsRead;
+    private final Counter documentsWritten;
+    private final Timer bulkBatch;
+
+    ChangeUnitMetrics(MeterRegistry registry, String changeUnitId, String writeConcern, MigrationMetrics parent) {
+        this.registry = registry;
+        this.changeUnitId = changeUnitId;
+        this.writeConcern = writeConcern;
+        this.parent = parent;
+        this.documentsRead = Counter.builder("migration.documents.read")
+            .tag("changeUnit", changeUnitId)
+            .register(registry);
+        this.documentsWritten = Counter.builder("migration.documents.written")
+            .tag("changeUnit", changeUnitId)
+            .tag("writeConcern", writeConcern)
+            .register(registry);
+        this.bulkBatch = Timer.builder("migration.bulk.batch")
+            .description("Latency of one bulk write batch")
+            .tag("changeUnit", changeUnitId)
+            .tag("writeConcern", writeConcern)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    public String getChangeUnitId() {
+        return changeUnitId;
+    }
+
+    public void execution(Runnable body) {
+        record("execution", body);
+    }
+
+    public void rollback(Runnable body) {
+        record("rollback", body);
+    }
+
+    public void documentsRead(long count) {
+        documentsRead.increment(count);
+    }
+
+    public void documentsWritten(long count) {
+        documentsWritten.increment(count);
+    }
+
+    public Timer bulkBatchTimer() {
+        return bulkBatch;
+    }
+
+    /** Fraction (0..1) of an index build that has completed, as last observed via currentOp. */
+    public void indexBuildProgress(String collection, String index, Supplier<Number> progress) {
+        Gauge.builder("migration.index.build.progress", progress)
+            .tag("changeUnit", changeUnitId)
+            .tag("collection", collection)
+            .tag("index", index)
+            .strongReference(true)
+            .register(registry);
+    }
+
+    private void record(String phase, Runnable body) {
+        long start = System.nanoTime();
+        if (parent != null) {
+            Timer.builder("migration.lock.wait")
+                .description("Time between the Mongock run starting and this change unit starting, excluding earlier change units")
+                .tag("changeUnit", changeUnitId)
+                .register(registry)
+                .record(parent.waitedSinceRunStart(start), TimeUnit.NANOSECONDS);
+        }
+        double readBefore = documentsRead.count();
+        double writtenBefore = documentsWritten.count();
+        String outcome = "success";
+        try {
+            body.run();
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (parent != null) {
+                parent.addExecutingTime(elapsed);
+            }
+            Timer.builder("migration.changeunit.duration")
+                .tag("changeUnit", changeUnitId)
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .tag("writeConcern", writeConcern)
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+            if (parent != null) {
+                parent.completed(new ChangeUnitRun(changeUnitId, phase, outcome, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    Math.round(documentsRead.count() - readBefore), Math.round(documentsWritten.count() - writtenBefore),
+                    new Date()));
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.mongockdemo.migration.metrics;
+
+import java.util.Date;
+
+/** Outcome and document counts of one execution or rollback of a change unit in this process. */
+public record ChangeUnitRun(String changeUnitId, String phase, String outcome, long durationMillis,
+                            long documentsRead, long documentsWritten, Date finishedAt) {
+}
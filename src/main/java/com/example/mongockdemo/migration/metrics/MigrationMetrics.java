@@ -0,0 +1,74 @@
+package com.example.mongockdemo.migration.metrics;
+
+import com.example.mongockdemo.migration.support.ChangeUnitOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.runner.spring.base.events.SpringMigrationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entry point for change-unit instrumentation. Change units take this as an {@code @Execution} /
+ * {@code @RollbackExecution} parameter and wrap their body with {@link ChangeUnitMetrics#execution}
+ * or {@link ChangeUnitMetrics#rollback}.
+ */
+@Component
+public class MigrationMetrics {
+
+    private final MeterRegistry registry;
+
+    // Start of the current Mongock run and the time spent inside change units since then, so the
+    // remainder before a unit starts can be reported as lock wait
+    private final AtomicLong runStartNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong executingNanos = new AtomicLong();
+
+    // Finished change units not yet persisted by MigrationHistory
+    private final Queue<ChangeUnitRun> completedRuns = new ConcurrentLinkedQueue<>();
+
+    public MigrationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @EventListener
+    public void onMigrationStarted(SpringMigrationStartedEvent event) {
+        runStartNanos.set(System.nanoTime());
+        executingNanos.set(0);
+    }
+
+    public ChangeUnitMetrics forChangeUnit(String changeUnitId) {
+        return new ChangeUnitMetrics(registry, changeUnitId, "default", this);
+    }
+
+    public ChangeUnitMetrics forChangeUnit(Class<?> changeUnitClass) {
+        ChangeUnitOptions options = changeUnitClass.getAnnotation(ChangeUnitOptions.class);
+        String writeConcern = options == null || options.writeConcern().isEmpty() ? "default" : options.writeConcern();
+        return new ChangeUnitMetrics(registry, changeUnitClass.getAnnotation(ChangeUnit.class).id(), writeConcern, this);
+    }
+
+    /** Removes and returns the change-unit runs finished since the last call. */
+    public List<ChangeUnitRun> drainCompletedRuns() {
+        List<ChangeUnitRun> runs = new ArrayList<>();
+        for (ChangeUnitRun run; (run = completedRuns.poll()) != null; ) {
+            runs.add(run);
+        }
+        return runs;
+    }
+
+    void completed(ChangeUnitRun run) {
+        completedRuns.add(run);
+    }
+
+    long waitedSinceRunStart(long startNanos) {
+        return Math.max(0, startNanos - runStartNanos.get() - executingNanos.get());
+    }
+
+    void addExecutingTime(long nanos) {
+        executingNanos.addAndGet(nanos);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.mongockdemo.migration.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Writes {@code META-INF/mongock/change-units.manifest} at compile time: one tab-separated line per
+ * {@code @ChangeUnit} class with its id, order, author and the signatures of its {@code @Execution}
+ * and {@code @RollbackExecution} methods. Read at startup by ChangeUnitManifest instead of scanning
+ * {@code mongock.migration-scan-package}.
+ *
+ * <p>An incremental compile (e.g. in an IDE) only hands the processor the classes it recompiles, so the
+ * manifest already in the output directory is merged in: its entries are kept unless the class was
+ * recompiled, was deleted or is no longer a change unit. The manifest is rewritten even when that
+ * leaves no entries, so it never lists change units that are gone.
+ *
+ * <p>Compiled in its own maven-compiler execution before the rest of the sources (see pom.xml), so it
+ * refers to the Mongock annotations by name only.
+ */
+@SupportedAnnotationTypes(ChangeUnitManifestProcessor.CHANGE_UNIT)
+public class ChangeUnitManifestProcessor extends AbstractProcessor {
+
+    static final String CHANGE_UNIT = "io.mongock.api.annotations.ChangeUnit";
+    static final String EXECUTION = "io.mongock.api.annotations.Execution";
+    static final String ROLLBACK_EXECUTION = "io.mongock.api.annotations.RollbackExecution";
+    static final String LOCATION = "META-INF/mongock/change-units.manifest";
+
+    // Keyed by class name so the manifest is stable between builds
+    private final Map<String, String> lines = new TreeMap<>();
+    private boolean previousMerged;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        if (!previousMerged) {
+            previousMerged = true;
+            mergePreviousManifest();
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    TypeElement type = (TypeElement) element;
+                    String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+                    lines.put(className, line(className, type));
+                }
+            }
+        }
+        if (round.processingOver()) {
+            writeManifest();
+        }
+        return false;
+    }
+
+    private String line(String className, TypeElement type) {
+        AnnotationMirror changeUnit = annotation(type, CHANGE_UNIT);
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+            processingEnv.getElementUtils().getElementValuesWithDefaults(changeUnit);
+        return String.join("\t",
+            className,
+            value(values, "id"),
+            value(values, "order"),
+            value(values, "author"),
+            signature(type, EXECUTION),
+            signature(type, ROLLBACK_EXECUTION));
+    }
+
+    /** e.g. {@code execute(org.springframework.data.mongodb.core.MongoTemplate,...)}, or empty when absent. */
+    private String signature(TypeElement type, String annotationName) {
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD && annotation(member, annotationName) != null) {
+                ExecutableElement method = (ExecutableElement) member;
+                return method.getSimpleName() + method.getParameters().stream()
+                    .map(VariableElement::asType)
+                    .map(parameter -> processingEnv.getTypeUtils().erasure(parameter).toString())
+                    .collect(Collectors.joining(",", "(", ")"));
+            }
+        }
+        return "";
+    }
+
+    /** Keeps the entries of the last build whose class is still compiled and annotated with @ChangeUnit. */
+    private void mergePreviousManifest() {
+        CharSequence previous;
+        try {
+            previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", LOCATION).getCharContent(true);
+        } catch (IOException | IllegalArgumentException e) {
+            // No earlier manifest: a clean build, which hands the processor every change unit anyway
+            return;
+        }
+        previous.toString().lines()
+            .filter(line -> !line.isBlank() && !line.startsWith("#"))
+            .forEach(line -> {
+                String className = line.substring(0, line.indexOf('\t'));
+                TypeElement type = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+                if (type != null && annotation(type, CHANGE_UNIT) != null) {
+                    lines.put(className, line);
+                }
+            });
+    }
+
+    private void writeManifest() {
+        try {
+            FileObject manifest = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", LOCATION);
+            try (Writer writer = manifest.openWriter()) {
+                writer.write("# Generated by ChangeUnitManifestProcessor: class, id, order, author, execution, rollback\n");
+                for (String line : lines.values()) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + LOCATION + ": " + e);
+        }
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String value(Map<? extends ExecutableElement, ? extends AnnotationValue> values, String name) {
+        return values.entrySet().stream()
+            .filter(entry -> entry.getKey().getSimpleName().contentEquals(name))
+            .map(entry -> String.valueOf(entry.getValue().getValue()))
+            .findFirst()
+            .orElse("");
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.mongockdemo.migration.runner;
+
+import io.mongock.driver.api.driver.ConnectionDriver;
+import io.mongock.runner.springboot.base.MongockApplicationRunner;
+import io.mongock.runner.springboot.base.config.MongockSpringConfiguration;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Background migration mode ({@code migration.background.enabled=true}): swaps Mongock's
+ * {@link MongockApplicationRunner}, which runs every pending change unit before startup completes,
+ * for {@link BackgroundMigrationRunner}. Inactive when Mongock itself is disabled.
+ */
+@Configuration
+@ConditionalOnExpression("${migration.background.enabled:false} and ${mongock.enabled:true}")
+public class BackgroundMigrationConfiguration {
+
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor removeMongockApplicationRunner() {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                // Mongock declares the runner as a @Bean method, so match on the factory method's return type
+                for (String name : registry.getBeanDefinitionNames()) {
+                    if (registry.getBeanDefinition(name) instanceof AnnotatedBeanDefinition definition
+                        && definition.getFactoryMethodMetadata() != null
+                        && MongockApplicationRunner.class.getName()
+                            .equals(definition.getFactoryMethodMetadata().getReturnTypeName())) {
+                        registry.removeBeanDefinition(name);
+                    }
+                }
+            }
+
+            @Override
+            public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            }
+        };
+    }
+
+    @Bean
+    public BackgroundMigrationRunner backgroundMigrationRunner(ConnectionDriver driver, MongockSpringConfiguration config,
+                                                               ApplicationContext context, ChangeUnitCatalog catalog,
+                                                               MigrationStatus status) {
+        return new BackgroundMigrationRunner(driver, config, context, catalog, status);
+    }
+}
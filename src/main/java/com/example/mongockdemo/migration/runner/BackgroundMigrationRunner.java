@@ -0,0 +1,109 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.driver.api.driver.ConnectionDriver;
+import io.mongock.runner.core.executor.MongockRunner;
+import io.mongock.runner.springboot.MongockSpringboot;
+import io.mongock.runner.springboot.base.config.MongockSpringConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Replaces Mongock's startup runner when {@code migration.background.enabled=true}. Pending
+ * {@link BlockingChangeUnit}s run before the application is ready, as before; the remaining change
+ * units run afterwards on a single background thread, in order, while the application serves traffic.
+ */
+public class BackgroundMigrationRunner implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundMigrationRunner.class);
+
+    private final ConnectionDriver driver;
+    private final MongockSpringConfiguration config;
+    private final ApplicationContext context;
+    private final ChangeUnitCatalog catalog;
+    private final MigrationStatus status;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "background-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BackgroundMigrationRunner(ConnectionDriver driver, MongockSpringConfiguration config,
+                                     ApplicationContext context, ChangeUnitCatalog catalog, MigrationStatus status) {
+        this.driver = driver;
+        this.config = config;
+        this.context = context;
+        this.catalog = catalog;
+        this.status = status;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Class<?>> blocking = new ArrayList<>();
+        List<Class<?>> background = new ArrayList<>();
+        for (Class<?> type : catalog.pendingChangeUnits()) {
+            (type.isAnnotationPresent(BlockingChangeUnit.class) ? blocking : background).add(type);
+        }
+
+        // Instances with nothing blocking pending skip the lock entirely instead of queueing behind a backfill
+        if (!blocking.isEmpty()) {
+            log.info("Running {} blocking change unit(s) before startup: {}", blocking.size(), ids(blocking));
+            runner(blocking, true).execute();
+        }
+        if (background.isEmpty()) {
+            return;
+        }
+
+        List<String> backgroundIds = ids(background);
+        log.info("Running {} change unit(s) in the background: {}", background.size(), backgroundIds);
+        status.backgroundStarted(backgroundIds);
+        executor.execute(() -> {
+            try {
+                runner(background, false).execute();
+                // Another instance holding the lock makes Mongock return without running anything
+                boolean applied = backgroundIds.stream().allMatch(status::isCompleted);
+                status.backgroundFinished(applied ? MigrationStatus.BackgroundState.COMPLETED
+                    : MigrationStatus.BackgroundState.DEFERRED, null);
+                log.info("Background change units {}", applied ? "completed" : "left to the instance holding the lock");
+            } catch (RuntimeException e) {
+                log.error("Background change units failed", e);
+                status.backgroundFinished(MigrationStatus.BackgroundState.FAILED, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private MongockRunner runner(List<Class<?>> changeUnits, boolean failIfLocked) {
+        // Run exactly the given classes: same settings as mongock.*, minus the package scan
+        MongockSpringConfiguration runConfig = new MongockSpringConfiguration();
+        runConfig.updateFrom(config);
+        runConfig.setMigrationScanPackage(new ArrayList<>());
+        runConfig.setThrowExceptionIfCannotObtainLock(failIfLocked && config.isThrowExceptionIfCannotObtainLock());
+
+        return MongockSpringboot.builder()
+            .setDriver(driver)
+            .setConfig(runConfig)
+            .setSpringContext(context)
+            .setEventPublisher(context)
+            .addMigrationClasses(changeUnits)
+            .buildRunner();
+    }
+
+    private static List<String> ids(List<Class<?>> changeUnits) {
+        return changeUnits.stream().map(type -> type.getAnnotation(ChangeUnit.class).id()).toList();
+    }
+}
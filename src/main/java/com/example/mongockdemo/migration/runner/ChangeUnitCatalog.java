@@ -0,0 +1,99 @@
+package com.example.mongockdemo.migration.runner;
+
+import io.mongock.api.annotations.ChangeUnit;
+import org.bson.Document;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/** Lists the compiled change units and what Mongock's changelog says about each of them. */
+@Component
+public class ChangeUnitCatalog {
+
+    private final MongoTemplate mongoTemplate;
+    private final Environment environment;
+
+    public ChangeUnitCatalog(MongoTemplate mongoTemplate, Environment environment) {
+        this.mongoTemplate = mongoTemplate;
+        this.environment = environment;
+    }
+
+    public List<Class<?>> changeUnits() {
+        return changeUnits(environment);
+    }
+
+    public String changelogCollection() {
+        return changelogCollection(environment);
+    }
+
+    /**
+     * Change units in {@code mongock.migration-scan-package}, sorted by order, taken from the build-time
+     * {@link ChangeUnitManifest} when there is one. Usable before the context exists.
+     */
+    public static List<Class<?>> changeUnits(Environment environment) {
+        String[] basePackages = environment.getProperty("mongock.migration-scan-package", String[].class, new String[0]);
+        Optional<List<ChangeUnitManifest.Entry>> manifest = ChangeUnitManifest.entries();
+        if (manifest.isPresent()) {
+            return manifest.get().stream()
+                .<Class<?>>map(ChangeUnitManifest.Entry::type)
+                .filter(type -> Arrays.stream(basePackages).anyMatch(base -> type.getName().startsWith(base + ".")))
+                .toList();
+        }
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(ChangeUnit.class));
+
+        List<Class<?>> changeUnits = new ArrayList<>();
+        for (String basePackage : basePackages) {
+            for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                changeUnits.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), ChangeUnitCatalog.class.getClassLoader()));
+            }
+        }
+        changeUnits.sort(Comparator.comparing(type -> type.getAnnotation(ChangeUnit.class).order()));
+        return changeUnits;
+    }
+
+    public static String changelogCollection(Environment environment) {
+        return environment.getProperty("mongock.migration-repository-name", "mongockChangeLog");
+    }
+
+    /** Latest changelog state per change id, e.g. EXECUTED, FAILED or ROLLED_BACK. */
+    public Map<String, String> latestStates() {
+        Map<String, String> states = new HashMap<>();
+        mongoTemplate.getCollection(changelogCollection())
+            .find(new Document("type", "EXECUTION"))
+            .projection(new Document("changeId", 1).append("state", 1))
+            .sort(new Document("timestamp", 1))
+            .forEach(entry -> states.put(entry.getString("changeId"), entry.getString("state")));
+        return states;
+    }
+
+    /** Latest changelog state of one change id, or null if it never ran. */
+    public String latestState(String changeId) {
+        Document entry = mongoTemplate.getCollection(changelogCollection())
+            .find(new Document("type", "EXECUTION").append("changeId", changeId))
+            .projection(new Document("state", 1))
+            .sort(new Document("timestamp", -1))
+            .first();
+        return entry == null ? null : entry.getString("state");
+    }
+
+    public List<Class<?>> pendingChangeUnits() {
+        Map<String, String> states = latestStates();
+        return changeUnits().stream()
+            .filter(type -> !"EXECUTED".equals(states.get(type.getAnnotation(ChangeUnit.class).id())))
+            .toList();
+    }
+}
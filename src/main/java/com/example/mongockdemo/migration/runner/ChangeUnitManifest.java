@@ -0,0 +1,101 @@
+package com.example.mongockdemo.migration.runner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The change units listed at build time by ChangeUnitManifestProcessor, with the signatures of their
+ * {@code @Execution} and {@code @RollbackExecution} methods. Mongock still resolves those methods
+ * itself; the signatures are only checked against the compiled classes. Loaded once; if the manifest
+ * is missing or no longer matches the compiled classes, callers fall back to classpath scanning.
+ */
+public final class ChangeUnitManifest {
+
+    public static final String LOCATION = "META-INF/mongock/change-units.manifest";
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeUnitManifest.class);
+
+    private static volatile Optional<List<Entry>> entries;
+
+    public record Entry(Class<?> type, String id, String order, String author,
+                        String execution, String rollback) {
+    }
+
+    private ChangeUnitManifest() {}
+
+    /** Manifest entries sorted by order, or empty when the change units have to be scanned. */
+    public static Optional<List<Entry>> entries() {
+        Optional<List<Entry>> loaded = entries;
+        if (loaded == null) {
+            synchronized (ChangeUnitManifest.class) {
+                if (entries == null) {
+                    entries = read(ChangeUnitManifest.class.getClassLoader());
+                }
+                loaded = entries;
+            }
+        }
+        return loaded;
+    }
+
+    private static Optional<List<Entry>> read(ClassLoader classLoader) {
+        InputStream in = classLoader.getResourceAsStream(LOCATION);
+        if (in == null) {
+            log.debug("No {} on the classpath, change units will be scanned", LOCATION);
+            return Optional.empty();
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<Entry> result = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    result.add(entry(line.split("\t", -1), classLoader));
+                }
+            }
+            if (result.isEmpty()) {
+                log.debug("{} lists no change units, change units will be scanned", LOCATION);
+                return Optional.empty();
+            }
+            result.sort(Comparator.comparing(Entry::order));
+            return Optional.of(List.copyOf(result));
+        } catch (IOException | ReflectiveOperationException | IllegalArgumentException | LinkageError e) {
+            log.warn("Ignoring stale or unreadable {}, change units will be scanned: {}", LOCATION, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    private static Entry entry(String[] fields, ClassLoader classLoader) throws ReflectiveOperationException {
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Malformed manifest line: " + String.join(" | ", fields));
+        }
+        Class<?> type = ClassUtils.forName(fields[0], classLoader);
+        requireMethod(type, fields[4], classLoader);
+        requireMethod(type, fields[5], classLoader);
+        return new Entry(type, fields[1], fields[2], fields[3], fields[4], fields[5]);
+    }
+
+    /** Looks up {@code name(type,...)}; a signature that no longer exists means the manifest is stale. */
+    private static void requireMethod(Class<?> type, String signature, ClassLoader classLoader)
+        throws ReflectiveOperationException {
+        if (signature.isEmpty()) {
+            return;
+        }
+        int open = signature.indexOf('(');
+        String parameters = signature.substring(open + 1, signature.length() - 1);
+        Class<?>[] parameterTypes = parameters.isEmpty() ? new Class<?>[0] : Arrays.stream(parameters.split(","))
+            .map(name -> ClassUtils.resolveClassName(name, classLoader))
+            .toArray(Class<?>[]::new);
+        type.getMethod(signature.substring(0, open), parameterTypes);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mongockdemo.migration.runner;
+
+import io.mongock.runner.springboot.base.config.MongockSpringConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands Mongock the change units from the build-time {@link ChangeUnitManifest} instead of the packages
+ * in {@code mongock.migration-scan-package}. Mongock loads entries that are class names directly, so the
+ * runner no longer scans the classpath; without a usable manifest the scan packages are left as they are.
+ */
+@Component
+public class ChangeUnitManifestPostProcessor implements BeanPostProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeUnitManifestPostProcessor.class);
+
+    private final Environment environment;
+
+    public ChangeUnitManifestPostProcessor(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof MongockSpringConfiguration config && ChangeUnitManifest.entries().isPresent()) {
+            List<String> classNames = new ArrayList<>();
+            ChangeUnitCatalog.changeUnits(environment).forEach(type -> classNames.add(type.getName()));
+            if (classNames.isEmpty()) {
+                return bean;
+            }
+            config.setMigrationScanPackage(classNames);
+            log.info("Loaded {} change unit(s) from {}", classNames.size(), ChangeUnitManifest.LOCATION);
+        }
+        return bean;
+    }
+}
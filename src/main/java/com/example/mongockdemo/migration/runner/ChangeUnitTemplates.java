@@ -0,0 +1,192 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.example.mongockdemo.migration.support.ChangeUnitOptions;
+import com.example.mongockdemo.migration.support.FusibleChangeUnit;
+import com.example.mongockdemo.migration.support.WriteConcerns;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.CollectionPreparer;
+import org.springframework.data.mongodb.core.CursorPreparer;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hands each change unit a MongoTemplate configured by its {@link ChangeUnitOptions}. Change units take
+ * this as a {@code @NonLockGuarded} parameter and call {@link #forChangeUnit} with the template Mongock
+ * injected, which is returned unchanged when the change unit declares no options.
+ *
+ * <p>Configured templates are not lock-guarded by Mongock, like the MongoDatabaseFactory IndexManager
+ * uses: Mongock neither checks nor extends its lock around their calls, so a change unit that has lost
+ * the lock keeps writing through them. Units that use one for long writes checkpoint their progress.
+ *
+ * <p>Write concern and read preference are applied at the database level, so they also cover
+ * {@code getCollection()} and {@code getDb()} users. maxTimeMS only bounds MongoTemplate finds: the
+ * driver has no collection-wide time limit, so raw driver cursors have to set it themselves.
+ */
+@Component
+public class ChangeUnitTemplates {
+
+    private final MongoDatabaseFactory databaseFactory;
+    private final MongoConverter converter;
+    private final Map<Key, MongoTemplate> templates = new ConcurrentHashMap<>();
+
+    private record Key(Class<?> changeUnitClass, String writeConcern) {
+    }
+
+    public ChangeUnitTemplates(MongoDatabaseFactory databaseFactory, MongoConverter converter) {
+        this.databaseFactory = databaseFactory;
+        this.converter = converter;
+    }
+
+    /**
+     * The template for {@code changeUnitClass}'s options, or {@code injected} when it declares none.
+     * A configured template is not lock-guarded (see above).
+     */
+    public MongoTemplate forChangeUnit(Class<?> changeUnitClass, MongoTemplate injected) {
+        ChangeUnitOptions options = changeUnitClass.getAnnotation(ChangeUnitOptions.class);
+        if (options == null) {
+            return injected;
+        }
+        return forChangeUnit(changeUnitClass, injected, options.writeConcern());
+    }
+
+    /**
+     * Like {@link #forChangeUnit(Class, MongoTemplate)} but with {@code writeConcern} instead of the declared
+     * one, for a step that needs a different guarantee, e.g. the validator change of a {@code w1} backfill.
+     * Never lock-guarded.
+     */
+    public MongoTemplate forChangeUnit(Class<?> changeUnitClass, MongoTemplate injected, String writeConcern) {
+        ChangeUnitOptions options = changeUnitClass.getAnnotation(ChangeUnitOptions.class);
+        return templates.computeIfAbsent(new Key(changeUnitClass, writeConcern), key -> new ConfiguredMongoTemplate(
+            databaseFactory, converter, writeConcern(writeConcern),
+            options == null ? null : readPreference(options), options == null ? 0 : options.maxTimeMs()));
+    }
+
+    /**
+     * The template for a fused pass over {@code group}, led by its first unit: the leader's options with
+     * the strictest write concern of any member, where a member that declares none counts as
+     * {@code injected}'s. Not lock-guarded when it differs from {@code injected}.
+     */
+    public MongoTemplate forFusedPass(List<? extends FusibleChangeUnit> group, MongoTemplate injected) {
+        Class<?> leader = group.get(0).getClass();
+        String writeConcern = strictestWriteConcern(group.stream().<Class<?>>map(Object::getClass).toList(),
+            injected.getDb().getWriteConcern());
+        return writeConcern.equals(declaredWriteConcern(leader))
+            ? forChangeUnit(leader, injected)
+            : forChangeUnit(leader, injected, writeConcern);
+    }
+
+    /** The declared write concern name of the strictest member, "" for the default; the earliest on ties. */
+    static String strictestWriteConcern(List<Class<?>> group, WriteConcern defaultWriteConcern) {
+        String strictest = declaredWriteConcern(group.get(0));
+        for (Class<?> member : group) {
+            String declared = declaredWriteConcern(member);
+            if (WriteConcerns.compare(effective(declared, defaultWriteConcern), effective(strictest, defaultWriteConcern)) > 0) {
+                strictest = declared;
+            }
+        }
+        return strictest;
+    }
+
+    private static String declaredWriteConcern(Class<?> changeUnitClass) {
+        ChangeUnitOptions options = changeUnitClass.getAnnotation(ChangeUnitOptions.class);
+        return options == null ? "" : options.writeConcern();
+    }
+
+    private static WriteConcern effective(String name, WriteConcern defaultWriteConcern) {
+        return name.isEmpty() ? defaultWriteConcern : writeConcern(name);
+    }
+
+    private static WriteConcern writeConcern(String name) {
+        if (name.isEmpty()) {
+            return null;
+        }
+        WriteConcern writeConcern = WriteConcern.valueOf(name);
+        if (writeConcern == null) {
+            throw new IllegalArgumentException("Unknown write concern in @ChangeUnitOptions: " + name);
+        }
+        return writeConcern;
+    }
+
+    private static ReadPreference readPreference(ChangeUnitOptions options) {
+        return options.readPreference().isEmpty() ? null : ReadPreference.valueOf(options.readPreference());
+    }
+
+    private static class ConfiguredMongoTemplate extends MongoTemplate {
+
+        private final WriteConcern writeConcern;
+        private final ReadPreference readPreference;
+        private final long maxTimeMs;
+
+        ConfiguredMongoTemplate(MongoDatabaseFactory databaseFactory, MongoConverter converter,
+                                WriteConcern writeConcern, ReadPreference readPreference, long maxTimeMs) {
+            super(databaseFactory, converter);
+            this.writeConcern = writeConcern;
+            this.readPreference = readPreference;
+            this.maxTimeMs = maxTimeMs;
+            setWriteConcern(writeConcern);
+            setReadPreference(readPreference);
+        }
+
+        @Override
+        protected MongoDatabase prepareDatabase(MongoDatabase database) {
+            MongoDatabase prepared = super.prepareDatabase(database);
+            if (writeConcern != null) {
+                prepared = prepared.withWriteConcern(writeConcern);
+            }
+            if (readPreference != null) {
+                prepared = prepared.withReadPreference(readPreference);
+            }
+            return prepared;
+        }
+
+        @Override
+        protected <T> List<T> doFind(String collectionName, CollectionPreparer<MongoCollection<Document>> collectionPreparer,
+                                     Document query, Document fields, Class<T> entityClass, CursorPreparer preparer) {
+            return super.doFind(collectionName, collectionPreparer, query, fields, entityClass, bounded(preparer));
+        }
+
+        @Override
+        protected <T> T doFindOne(String collectionName, CollectionPreparer<MongoCollection<Document>> collectionPreparer,
+                                  Document query, Document fields, CursorPreparer preparer, Class<T> entityClass) {
+            return super.doFindOne(collectionName, collectionPreparer, query, fields, bounded(preparer), entityClass);
+        }
+
+        private CursorPreparer bounded(CursorPreparer preparer) {
+            CursorPreparer delegate = preparer == null ? CursorPreparer.NO_OP_PREPARER : preparer;
+            if (maxTimeMs <= 0) {
+                return delegate;
+            }
+            return new CursorPreparer() {
+                @Override
+                public FindIterable<Document> prepare(FindIterable<Document> iterable) {
+                    // A maxTime set on the Query itself is applied afterwards and wins
+                    return delegate.prepare(iterable.maxTime(maxTimeMs, TimeUnit.MILLISECONDS));
+                }
+
+                @Override
+                public FindIterable<Document> initiateFind(MongoCollection<Document> collection,
+                                                           Function<MongoCollection<Document>, FindIterable<Document>> find) {
+                    return delegate.initiateFind(collection, find);
+                }
+
+                @Override
+                public ReadPreference getReadPreference() {
+                    return delegate.getReadPreference();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.example.mongockdemo.migration.support.IndexManager;
+import com.mongodb.MongoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Restarts the background index builds an earlier process left unfinished. Their change units are
+ * already in the changelog, so Mongock (or the fast path skipping it) would not start them again.
+ * Not tied to {@code mongock.enabled}, which the fast path turns off on every boot after the first;
+ * the profiles that must not write turn it off with {@code migration.index.recovery.enabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "migration.index.recovery.enabled", havingValue = "true", matchIfMissing = true)
+public class IndexBuildRecovery {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexBuildRecovery.class);
+
+    private final MongoDatabaseFactory databaseFactory;
+    private final MigrationMetrics metrics;
+    private final MigrationProperties properties;
+
+    public IndexBuildRecovery(MongoDatabaseFactory databaseFactory, MigrationMetrics metrics,
+                              MigrationProperties properties) {
+        this.databaseFactory = databaseFactory;
+        this.metrics = metrics;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        try {
+            int resumed = IndexManager.resumeUnfinished(databaseFactory, metrics, properties.getIndex().getPollInterval());
+            if (resumed > 0) {
+                log.info("Resumed {} unfinished index build(s) in the background", resumed);
+            }
+        } catch (MongoException e) {
+            // Still recorded, so the next boot tries again
+            log.warn("Could not resume unfinished index builds: {}", e.getMessage());
+        }
+    }
+}
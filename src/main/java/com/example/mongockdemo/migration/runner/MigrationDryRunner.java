@@ -0,0 +1,175 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.support.EstimableChangeUnit;
+import com.example.mongockdemo.migration.support.FusibleChangeUnit;
+import com.example.mongockdemo.migration.support.PlannedOperation;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import io.mongock.api.annotations.ChangeUnit;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reports what the pending change units would cost without running them. Active with the
+ * {@code dry-run} profile, which also disables Mongock (see application-dry-run.properties). Duration
+ * estimates need {@code migration.dry-run.probe=true}, which measures write rates in a scratch database.
+ */
+@Component
+@Profile("dry-run")
+public class MigrationDryRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationDryRunner.class);
+
+    private static final String PROBE_COLLECTION = "probe";
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeUnitCatalog catalog;
+    private final MigrationProperties properties;
+
+    public MigrationDryRunner(MongoTemplate mongoTemplate, ChangeUnitCatalog catalog, MigrationProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalog = catalog;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Class<?>> pending = catalog.pendingChangeUnits();
+        log.info("Migration dry run: {} pending change unit(s)", pending.size());
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<PlannedOperation.Kind, Double> rates = measureWriteRates();
+        if (rates.isEmpty()) {
+            log.info("  Write rates not measured, no duration estimates (enable with migration.dry-run.probe=true)");
+        } else {
+            log.info("  Measured write rates in {} (batches of {}): insert {} docs/sec, update {} docs/sec, "
+                    + "bulk update {} docs/sec", properties.getDryRun().getProbeDatabase(), properties.getBulkSize(),
+                String.format("%.0f", rates.get(PlannedOperation.Kind.INSERT)),
+                String.format("%.0f", rates.get(PlannedOperation.Kind.UPDATE)),
+                String.format("%.0f", rates.get(PlannedOperation.Kind.BULK_UPDATE)));
+        }
+
+        Map<Class<?>, String> fusedInto = new HashMap<>();
+        for (Class<?> type : pending) {
+            ChangeUnit changeUnit = type.getAnnotation(ChangeUnit.class);
+            log.info("- {} {} ({})", changeUnit.order(), changeUnit.id(), type.getSimpleName());
+
+            Object instance = type.getDeclaredConstructor().newInstance();
+            if (fusedInto.containsKey(type)) {
+                log.info("    transformation applied in the fused pass of {}", fusedInto.get(type));
+            } else if (instance instanceof FusibleChangeUnit fusible) {
+                List<FusibleChangeUnit> group = fusible.fusionGroup(pending);
+                group.subList(1, group.size()).forEach(follower -> fusedInto.put(follower.getClass(), changeUnit.id()));
+                if (group.size() > 1) {
+                    log.info("    leads a fused pass over {} with {}", fusible.collection(),
+                        group.subList(1, group.size()).stream()
+                            .map(follower -> follower.getClass().getAnnotation(ChangeUnit.class).id())
+                            .collect(Collectors.joining(", ")));
+                }
+            }
+            if (!(instance instanceof EstimableChangeUnit estimable)) {
+                log.info("    no planned operations declared");
+                continue;
+            }
+            for (PlannedOperation operation : estimable.plannedOperations()) {
+                MongoCollection<Document> collection = mongoTemplate.getCollection(operation.collection());
+                long documents = collection.countDocuments(operation.filter());
+                log.info("    {} on {} {}", operation.description(), operation.collection(), operation.filter().toJson());
+                Double rate = rates.get(operation.kind());
+                log.info("      documents affected: {}, plan: {}, estimated duration: {}", documents,
+                    winningPlan(operation), rate == null ? "not measured" : String.format("%.1fs", documents / rate));
+            }
+        }
+    }
+
+    /**
+     * Writes throwaway documents into the scratch probe database and returns the observed docs/sec for
+     * bulk inserts, one updateMany over them and per-document bulk updates. Empty unless the probe is enabled.
+     */
+    private Map<PlannedOperation.Kind, Double> measureWriteRates() {
+        MigrationProperties.DryRun dryRun = properties.getDryRun();
+        if (!dryRun.isProbe()) {
+            return Map.of();
+        }
+        if (dryRun.getProbeDatabase().equals(mongoTemplate.getDb().getName())) {
+            throw new IllegalStateException("migration.dry-run.probe-database must not be the application database "
+                + dryRun.getProbeDatabase());
+        }
+        MongoDatabase database = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase(dryRun.getProbeDatabase());
+        MongoCollection<Document> probe = database.getCollection(PROBE_COLLECTION);
+        int total = dryRun.getProbeDocuments();
+        Map<PlannedOperation.Kind, Double> rates = new EnumMap<>(PlannedOperation.Kind.class);
+        try {
+            probe.drop();
+            rates.put(PlannedOperation.Kind.INSERT, rate(total, () -> {
+                for (int written = 0; written < total; ) {
+                    List<Document> batch = new ArrayList<>();
+                    for (int i = 0; i < properties.getBulkSize() && written < total; i++, written++) {
+                        batch.add(new Document("_id", written).append("payload", "x".repeat(256)));
+                    }
+                    probe.insertMany(batch, new InsertManyOptions().ordered(false));
+                }
+            }));
+            rates.put(PlannedOperation.Kind.UPDATE, rate(total, () ->
+                probe.updateMany(new Document(), new Document("$set", new Document("updated", 1)))));
+            rates.put(PlannedOperation.Kind.BULK_UPDATE, rate(total, () -> {
+                for (int written = 0; written < total; ) {
+                    List<UpdateOneModel<Document>> batch = new ArrayList<>();
+                    for (int i = 0; i < properties.getBulkSize() && written < total; i++, written++) {
+                        batch.add(new UpdateOneModel<>(new Document("_id", written),
+                            new Document("$set", new Document("updated", 2))));
+                    }
+                    probe.bulkWrite(batch, new BulkWriteOptions().ordered(false));
+                }
+            }));
+        } finally {
+            database.drop();
+        }
+        return rates;
+    }
+
+    private static double rate(int documents, Runnable writes) {
+        long start = System.nanoTime();
+        writes.run();
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        return documents / seconds;
+    }
+
+    private String winningPlan(PlannedOperation operation) {
+        Document explain = mongoTemplate.getDb().runCommand(new Document("explain",
+                new Document("find", operation.collection()).append("filter", operation.filter()))
+            .append("verbosity", "queryPlanner"));
+        Document plan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        if (plan.containsKey("queryPlan")) {
+            plan = plan.get("queryPlan", Document.class);
+        }
+
+        // Walk down the plan tree and collect stage names plus any index used, e.g. "FETCH <- IXSCAN(category_1)"
+        List<String> stages = new ArrayList<>();
+        while (plan != null) {
+            String stage = plan.getString("stage");
+            stages.add(plan.containsKey("indexName") ? stage + "(" + plan.getString("indexName") + ")" : stage);
+            plan = plan.get("inputStage", Document.class);
+        }
+        return String.join(" <- ", stages);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.apache.commons.logging.Log;
+import org.bson.Document;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disables Mongock for this boot when the stored {@link MigrationFingerprint} matches the compiled
+ * change units, so fully migrated instances neither take the Mongock lock nor diff the changelog.
+ * Costs one read; any mismatch, missing fingerprint or read failure falls back to a normal run.
+ *
+ * <p>Switched off with {@code migration.fast-path.enabled=false}. Undoing change units outside a normal
+ * run (e.g. a CLI rollback) must also delete the fingerprint document.
+ */
+public class MigrationFastPath implements EnvironmentPostProcessor {
+
+    private final Log log;
+
+    public MigrationFastPath(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(MigrationFastPath.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String uri = environment.getProperty("spring.data.mongodb.uri");
+        if (uri == null
+            || !environment.getProperty("migration.fast-path.enabled", Boolean.class, true)
+            || !environment.getProperty("mongock.enabled", Boolean.class, true)) {
+            return;
+        }
+
+        ConnectionString connectionString = new ConnectionString(uri);
+        String database = environment.getProperty("spring.data.mongodb.database", connectionString.getDatabase());
+        String collection = MigrationFingerprint.collection(ChangeUnitCatalog.changelogCollection(environment));
+        String expected = MigrationFingerprint.of(ChangeUnitCatalog.changeUnits(environment));
+
+        MongoClientSettings settings = MongoClientSettings.builder()
+            .applyConnectionString(connectionString)
+            .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(5, TimeUnit.SECONDS))
+            .build();
+        try (MongoClient client = MongoClients.create(settings)) {
+            Document stored = client.getDatabase(database).getCollection(collection)
+                .find(new Document("_id", MigrationFingerprint.DOCUMENT_ID)).first();
+            if (stored == null || !expected.equals(stored.getString("fingerprint"))) {
+                log.info("Change-unit fingerprint differs from " + collection + ", running Mongock");
+                return;
+            }
+        } catch (MongoException e) {
+            log.warn("Could not read change-unit fingerprint, running Mongock: " + e.getMessage());
+            return;
+        }
+
+        log.info("Change-unit fingerprint " + expected + " already applied, skipping Mongock");
+        environment.getPropertySources().addFirst(
+            new MapPropertySource("migrationFastPath", Map.of("mongock.enabled", "false")));
+    }
+}
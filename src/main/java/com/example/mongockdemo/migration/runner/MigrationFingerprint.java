@@ -0,0 +1,95 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.mongodb.client.model.ReplaceOptions;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.runner.spring.base.events.SpringMigrationSuccessEvent;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * SHA-256 over the id, order, author and class bytes of every compiled change unit. Recorded next to
+ * the changelog once nothing is pending, and compared at boot by {@link MigrationFastPath} so instances
+ * whose change units are all applied skip Mongock entirely.
+ */
+@Component
+public class MigrationFingerprint {
+
+    public static final String DOCUMENT_ID = "current";
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationFingerprint.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeUnitCatalog catalog;
+
+    public MigrationFingerprint(MongoTemplate mongoTemplate, ChangeUnitCatalog catalog) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalog = catalog;
+    }
+
+    /** Records the fingerprint after a run that left nothing pending; a partial (blocking-only) run records nothing. */
+    @EventListener
+    public void onMigrationSuccess(SpringMigrationSuccessEvent event) {
+        if (!catalog.pendingChangeUnits().isEmpty()) {
+            return;
+        }
+        List<Class<?>> changeUnits = catalog.changeUnits();
+        String fingerprint = of(changeUnits);
+        mongoTemplate.getCollection(collection(catalog.changelogCollection())).replaceOne(
+            new Document("_id", DOCUMENT_ID),
+            new Document("_id", DOCUMENT_ID)
+                .append("fingerprint", fingerprint)
+                .append("changeUnits", changeUnits.stream()
+                    .map(type -> type.getAnnotation(ChangeUnit.class).id()).toList())
+                .append("updatedAt", new Date()),
+            new ReplaceOptions().upsert(true));
+        log.info("Recorded change-unit fingerprint {}", fingerprint);
+    }
+
+    public static String collection(String changelogCollection) {
+        return changelogCollection + "Fingerprint";
+    }
+
+    public static String of(List<Class<?>> changeUnits) {
+        MessageDigest digest = sha256();
+        for (Class<?> type : changeUnits) {
+            ChangeUnit changeUnit = type.getAnnotation(ChangeUnit.class);
+            digest.update((changeUnit.id() + "|" + changeUnit.order() + "|" + changeUnit.author() + "|")
+                .getBytes(StandardCharsets.UTF_8));
+            digest.update(classBytes(type));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static byte[] classBytes(Class<?> type) {
+        try (InputStream in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+            if (in == null) {
+                throw new IllegalStateException("Class file of " + type.getName() + " not found");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
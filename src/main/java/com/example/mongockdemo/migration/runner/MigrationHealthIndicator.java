@@ -0,0 +1,52 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.example.mongockdemo.migration.support.BlockingChangeUnit;
+import io.mongock.api.annotations.ChangeUnit;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reports migration state under {@code /actuator/health/readiness}: DOWN while a blocking change unit
+ * is pending, UP otherwise, with the background change units and their state as details.
+ */
+@Component
+public class MigrationHealthIndicator implements HealthIndicator {
+
+    private final ChangeUnitCatalog catalog;
+    private final MigrationStatus status;
+
+    // Once every blocking change unit is applied the changelog no longer needs to be read
+    private volatile boolean blockingApplied;
+
+    public MigrationHealthIndicator(ChangeUnitCatalog catalog, MigrationStatus status) {
+        this.catalog = catalog;
+        this.status = status;
+    }
+
+    @Override
+    public Health health() {
+        if (!blockingApplied) {
+            List<String> pendingBlocking = catalog.pendingChangeUnits().stream()
+                .filter(type -> type.isAnnotationPresent(BlockingChangeUnit.class))
+                .map(type -> type.getAnnotation(ChangeUnit.class).id())
+                .toList();
+            if (!pendingBlocking.isEmpty()) {
+                return Health.down().withDetail("pendingBlocking", pendingBlocking)
+                    .withDetail("background", status.getBackgroundState()).build();
+            }
+            blockingApplied = true;
+        }
+
+        Health.Builder health = Health.up().withDetail("background", status.getBackgroundState());
+        if (!status.getBackgroundChangeUnits().isEmpty()) {
+            health.withDetail("backgroundChangeUnits", status.getBackgroundChangeUnits());
+        }
+        if (status.getBackgroundError() != null) {
+            health.withDetail("backgroundError", status.getBackgroundError());
+        }
+        return health.build();
+    }
+}
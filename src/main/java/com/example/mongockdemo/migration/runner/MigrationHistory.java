@@ -0,0 +1,162 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitRun;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.runner.spring.base.events.SpringMigrationFailureEvent;
+import io.mongock.runner.spring.base.events.SpringMigrationSuccessEvent;
+import org.bson.Document;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per change unit: its latest changelog state, when and where it ran, how long it took and how many
+ * documents it read and wrote. Document counts are persisted to {@code <changelog>Stats} after every
+ * Mongock run, so every instance can report them.
+ *
+ * <p>{@link #snapshot()} is served from memory. At most once per {@code migration.history.refresh-interval}
+ * it reads the newest _id and the count of the changelog and stats collections, and only reloads them
+ * when those changed, so frequent polling costs a few tiny queries per interval per instance.
+ */
+@Component
+public class MigrationHistory {
+
+    public record Entry(String changeId, String order, String author, String state, Date executedAt,
+                        Long durationMillis, String host, Long documentsRead, Long documentsWritten) {
+    }
+
+    public record Snapshot(Date refreshedAt, List<Entry> changeUnits) {
+    }
+
+    private record Version(Object changelogLatest, long changelogCount, Object statsLatest, long statsCount) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeUnitCatalog catalog;
+    private final MigrationMetrics metrics;
+    private final long refreshNanos;
+
+    private volatile Snapshot snapshot;
+    private volatile Version version;
+    private volatile long checkedAt;
+
+    public MigrationHistory(MongoTemplate mongoTemplate, ChangeUnitCatalog catalog, MigrationMetrics metrics,
+                            MigrationProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.catalog = catalog;
+        this.metrics = metrics;
+        this.refreshNanos = properties.getHistory().getRefreshInterval().toNanos();
+    }
+
+    public static String statsCollection(String changelogCollection) {
+        return changelogCollection + "Stats";
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - checkedAt < refreshNanos) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot != null && System.nanoTime() - checkedAt < refreshNanos) {
+                return snapshot;
+            }
+            Version latest = readVersion();
+            if (snapshot == null || !latest.equals(version)) {
+                snapshot = load();
+                version = latest;
+            }
+            checkedAt = System.nanoTime();
+            return snapshot;
+        }
+    }
+
+    @EventListener
+    public void onMigrationSuccess(SpringMigrationSuccessEvent event) {
+        persistCompletedRuns();
+    }
+
+    @EventListener
+    public void onMigrationFailure(SpringMigrationFailureEvent event) {
+        persistCompletedRuns();
+    }
+
+    private void persistCompletedRuns() {
+        MongoCollection<Document> stats = mongoTemplate.getCollection(statsCollection(catalog.changelogCollection()));
+        for (ChangeUnitRun run : metrics.drainCompletedRuns()) {
+            String id = run.changeUnitId() + "#" + run.phase();
+            stats.replaceOne(new Document("_id", id),
+                new Document("_id", id)
+                    .append("changeId", run.changeUnitId())
+                    .append("phase", run.phase())
+                    .append("outcome", run.outcome())
+                    .append("durationMillis", run.durationMillis())
+                    .append("documentsRead", run.documentsRead())
+                    .append("documentsWritten", run.documentsWritten())
+                    .append("updatedAt", run.finishedAt()),
+                new ReplaceOptions().upsert(true));
+        }
+    }
+
+    private Version readVersion() {
+        MongoCollection<Document> changelog = mongoTemplate.getCollection(catalog.changelogCollection());
+        MongoCollection<Document> stats = mongoTemplate.getCollection(statsCollection(catalog.changelogCollection()));
+        return new Version(latest(changelog, "_id"), changelog.estimatedDocumentCount(),
+            latest(stats, "updatedAt"), stats.estimatedDocumentCount());
+    }
+
+    private static Object latest(MongoCollection<Document> collection, String field) {
+        Document newest = collection.find()
+            .projection(new Document(field, 1))
+            .sort(new Document(field, -1))
+            .limit(1)
+            .first();
+        return newest == null ? null : newest.get(field);
+    }
+
+    private Snapshot load() {
+        Map<String, Document> latestEntries = new HashMap<>();
+        mongoTemplate.getCollection(catalog.changelogCollection())
+            .find(new Document("type", "EXECUTION"))
+            .sort(new Document("timestamp", 1))
+            .forEach(entry -> latestEntries.put(entry.getString("changeId"), entry));
+        Map<String, Document> stats = new HashMap<>();
+        mongoTemplate.getCollection(statsCollection(catalog.changelogCollection()))
+            .find()
+            .forEach(entry -> stats.put(entry.getString("_id"), entry));
+
+        List<Entry> entries = new ArrayList<>();
+        for (Class<?> type : catalog.changeUnits()) {
+            ChangeUnit changeUnit = type.getAnnotation(ChangeUnit.class);
+            Document entry = latestEntries.get(changeUnit.id());
+            if (entry == null) {
+                entries.add(new Entry(changeUnit.id(), changeUnit.order(), changeUnit.author(), "PENDING",
+                    null, null, null, null, null));
+                continue;
+            }
+            String state = entry.getString("state");
+            String phase = "ROLLED_BACK".equals(state) || "ROLLBACK_FAILED".equals(state) ? "rollback" : "execution";
+            Document counts = Objects.requireNonNullElse(stats.get(changeUnit.id() + "#" + phase), new Document());
+            entries.add(new Entry(changeUnit.id(), changeUnit.order(), changeUnit.author(), state,
+                entry.getDate("timestamp"), number(entry, "executionMillis"), entry.getString("executionHostname"),
+                number(counts, "documentsRead"), number(counts, "documentsWritten")));
+        }
+        return new Snapshot(new Date(), List.copyOf(entries));
+    }
+
+    private static Long number(Document document, String field) {
+        Number value = document.get(field, Number.class);
+        return value == null ? null : value.longValue();
+    }
+}
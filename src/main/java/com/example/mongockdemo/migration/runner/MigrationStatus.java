@@ -0,0 +1,78 @@
+package com.example.mongockdemo.migration.runner;
+
+import io.mongock.runner.spring.base.events.SpringMigrationFailureEvent;
+import io.mongock.runner.spring.base.events.SpringMigrationSuccessEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells application code whether a change unit has been applied, and tracks the change units that
+ * {@link BackgroundMigrationRunner} runs after startup. Completion is read from Mongock's changelog,
+ * so it also reflects change units applied or rolled back by another instance, within a few seconds
+ * for pending ones and a minute for completed ones.
+ */
+@Component
+public class MigrationStatus {
+
+    public enum BackgroundState { DISABLED, RUNNING, COMPLETED, DEFERRED, FAILED }
+
+    // Answers read from the changelog are reused for a while. A pending unit can complete at any time,
+    // so negative answers expire sooner; a completed one only becomes pending again through a rollback
+    // (here or on another instance), so positive answers are kept longer. Mongock runs in this process
+    // drop every answer as soon as they finish
+    private static final long PENDING_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long COMPLETED_TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private record Answer(boolean completed, long checkedAt) {
+    }
+
+    private final ChangeUnitCatalog catalog;
+    private final Map<String, Answer> answers = new ConcurrentHashMap<>();
+
+    private volatile BackgroundState backgroundState = BackgroundState.DISABLED;
+    private volatile List<String> backgroundChangeUnits = List.of();
+    private volatile String backgroundError;
+
+    public MigrationStatus(ChangeUnitCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public boolean isCompleted(String changeUnitId) {
+        long now = System.nanoTime();
+        Answer answer = answers.get(changeUnitId);
+        if (answer != null && now - answer.checkedAt() < (answer.completed() ? COMPLETED_TTL_NANOS : PENDING_TTL_NANOS)) {
+            return answer.completed();
+        }
+        boolean completed = "EXECUTED".equals(catalog.latestState(changeUnitId));
+        answers.put(changeUnitId, new Answer(completed, now));
+        return completed;
+    }
+
+    @EventListener({SpringMigrationSuccessEvent.class, SpringMigrationFailureEvent.class})
+    public void onMigrationFinished() {
+        answers.clear();
+    }
+
+    public BackgroundState getBackgroundState() { return backgroundState; }
+
+    public List<String> getBackgroundChangeUnits() { return backgroundChangeUnits; }
+
+    public String getBackgroundError() { return backgroundError; }
+
+    void backgroundStarted(List<String> changeUnitIds) {
+        backgroundChangeUnits = List.copyOf(changeUnitIds);
+        backgroundError = null;
+        backgroundState = BackgroundState.RUNNING;
+    }
+
+    void backgroundFinished(BackgroundState state, String error) {
+        answers.clear();
+        backgroundError = error;
+        backgroundState = state;
+    }
+}
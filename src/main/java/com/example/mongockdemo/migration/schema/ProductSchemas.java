@@ -0,0 +1,67 @@
+package com.example.mongockdemo.migration.schema;
+
+import com.example.mongockdemo.migration.schema.SchemaDefinition.Field;
+
+import java.util.List;
+
+/** Every validator version the products collection has gone through, oldest first. */
+public final class ProductSchemas {
+
+    /** No validator, as before migration 004. */
+    public static final SchemaDefinition V0 = SchemaDefinition.builder("products", 0)
+        .validationLevel("off")
+        .build();
+
+    /** Migration 004: required fields, types and the category enum. */
+    public static final SchemaDefinition V1 = SchemaDefinition.builder("products", 1)
+        .validationLevel("moderate")
+        .required("name", "price", "category", "stockQuantity")
+        .field("name", Field.of("string")
+            .description("Product name must be a string and is required")
+            .minLength(3)
+            .maxLength(100))
+        .field("description", Field.of("string")
+            .description("Product description must be a string"))
+        .field("price", Field.anyOf("decimal", "double", "string")
+            .description("Price must be a number and is required"))
+        .field("category", Field.of("string")
+            .description("Category must be a string and is required")
+            .oneOf("Electronics", "Furniture", "Appliances", "Office", "Home"))
+        .field("stockQuantity", Field.of("int")
+            .description("Stock quantity must be an integer and is required")
+            .minimum(0))
+        .build();
+
+    /** Migration 005: adds the optional rating (0-5). */
+    public static final SchemaDefinition V2 = SchemaDefinition.builder("products", 2)
+        .validationLevel("moderate")
+        .required("name", "price", "category", "stockQuantity")
+        .field("name", Field.of("string").minLength(3).maxLength(100))
+        .field("description", Field.of("string"))
+        .field("price", Field.anyOf("decimal", "double", "string"))
+        .field("category", Field.of("string").oneOf("Electronics", "Furniture", "Appliances", "Office", "Home"))
+        .field("stockQuantity", Field.of("int").minimum(0))
+        .field("rating", Field.of("double").minimum(0).maximum(5))
+        .build();
+
+    /** Migration 006: rating required, stock <= 1000, description <= 500 chars, strict. */
+    public static final SchemaDefinition V3 = SchemaDefinition.builder("products", 3)
+        .validationLevel("strict")
+        .required("name", "price", "category", "stockQuantity", "rating")
+        .field("name", Field.of("string").minLength(3).maxLength(100))
+        .field("description", Field.of("string").maxLength(500))
+        .field("price", Field.anyOf("decimal", "double", "string"))
+        .field("category", Field.of("string").oneOf("Electronics", "Furniture", "Appliances", "Office", "Home"))
+        .field("stockQuantity", Field.of("int").minimum(0).maximum(1000))
+        .field("rating", Field.of("double").minimum(0).maximum(5))
+        .build();
+
+    private static final List<SchemaDefinition> VERSIONS = List.of(V0, V1, V2, V3);
+
+    private ProductSchemas() {}
+
+    /** The version a rollback of {@code version} goes back to. */
+    public static SchemaDefinition previous(SchemaDefinition version) {
+        return VERSIONS.get(Math.max(0, VERSIONS.indexOf(version) - 1));
+    }
+}
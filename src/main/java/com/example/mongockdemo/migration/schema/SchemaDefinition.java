@@ -0,0 +1,190 @@
+package com.example.mongockdemo.migration.schema;
+
+import org.bson.Document;
+import org.bson.json.JsonWriterSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Declarative description of one validator version of a collection: required fields, per-field
+ * constraints, validation level and action. {@link #validator()} renders the $jsonSchema document
+ * and {@link #hash()} fingerprints it so an installed validator can be compared without a collMod.
+ */
+public final class SchemaDefinition {
+
+    private final String collection;
+    private final int version;
+    private final String validationLevel;
+    private final String validationAction;
+    private final List<String> required;
+    private final Document properties;
+
+    private SchemaDefinition(Builder builder) {
+        this.collection = builder.collection;
+        this.version = builder.version;
+        this.validationLevel = builder.validationLevel;
+        this.validationAction = builder.validationAction;
+        this.required = List.copyOf(builder.required);
+        this.properties = builder.properties;
+    }
+
+    public static Builder builder(String collection, int version) {
+        return new Builder(collection, version);
+    }
+
+    public String getCollection() { return collection; }
+    public int getVersion() { return version; }
+    public String getValidationLevel() { return validationLevel; }
+    public String getValidationAction() { return validationAction; }
+
+    public boolean hasValidator() {
+        return !properties.isEmpty();
+    }
+
+    public Document jsonSchema() {
+        return new Document()
+            .append("bsonType", "object")
+            .append("required", required)
+            .append("properties", properties);
+    }
+
+    public Document validator() {
+        return hasValidator() ? new Document("$jsonSchema", jsonSchema()) : new Document();
+    }
+
+    public String hash() {
+        return hash(validator(), validationLevel, validationAction);
+    }
+
+    /** SHA-256 over a key-sorted rendering, so the server's field order does not matter. */
+    public static String hash(Document validator, String validationLevel, String validationAction) {
+        Document state = new Document()
+            .append("validator", validator)
+            .append("validationLevel", validationLevel)
+            .append("validationAction", validationAction);
+        String canonical = new Document(canonicalize(state)).toJson(JsonWriterSettings.builder().build());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> canonicalize(Map<String, Object> document) {
+        Map<String, Object> sorted = new TreeMap<>();
+        document.forEach((key, value) -> sorted.put(key, canonicalizeValue(value)));
+        return sorted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object canonicalizeValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return new Document(canonicalize((Map<String, Object>) map));
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>();
+            list.forEach(item -> copy.add(canonicalizeValue(item)));
+            return copy;
+        }
+        return value;
+    }
+
+    public static final class Builder {
+        private final String collection;
+        private final int version;
+        private String validationLevel = "strict";
+        private String validationAction = "error";
+        private final List<String> required = new ArrayList<>();
+        private final Document properties = new Document();
+
+        private Builder(String collection, int version) {
+            this.collection = collection;
+            this.version = version;
+        }
+
+        public Builder validationLevel(String validationLevel) {
+            this.validationLevel = validationLevel;
+            return this;
+        }
+
+        public Builder validationAction(String validationAction) {
+            this.validationAction = validationAction;
+            return this;
+        }
+
+        public Builder required(String... fields) {
+            required.addAll(Arrays.asList(fields));
+            return this;
+        }
+
+        public Builder field(String name, Field field) {
+            properties.append(name, field.toDocument());
+            return this;
+        }
+
+        public SchemaDefinition build() {
+            return new SchemaDefinition(this);
+        }
+    }
+
+    /** Constraints of one property; keys are rendered in the order they are declared. */
+    public static final class Field {
+        private final Document spec = new Document();
+
+        private Field(Object bsonType) {
+            spec.append("bsonType", bsonType);
+        }
+
+        public static Field of(String bsonType) {
+            return new Field(bsonType);
+        }
+
+        public static Field anyOf(String... bsonTypes) {
+            return new Field(Arrays.asList(bsonTypes));
+        }
+
+        public Field description(String description) {
+            spec.append("description", description);
+            return this;
+        }
+
+        public Field minLength(int minLength) {
+            spec.append("minLength", minLength);
+            return this;
+        }
+
+        public Field maxLength(int maxLength) {
+            spec.append("maxLength", maxLength);
+            return this;
+        }
+
+        public Field minimum(int minimum) {
+            spec.append("minimum", minimum);
+            return this;
+        }
+
+        public Field maximum(int maximum) {
+            spec.append("maximum", maximum);
+            return this;
+        }
+
+        public Field oneOf(String... values) {
+            spec.append("enum", Arrays.asList(values));
+            return this;
+        }
+
+        private Document toDocument() {
+            return spec;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mongockdemo.migration.schema;
+
+import com.mongodb.WriteConcern;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Date;
+
+/**
+ * Installs {@link SchemaDefinition}s. The installed validator is read from listCollections and hashed
+ * the same way as the definition; when they match the collMod (and its exclusive collection lock) is
+ * skipped. Every installed version is recorded in {@value #HISTORY_COLLECTION}. The collMod and the
+ * history entry use the given template's write concern, so pass the one from ChangeUnitTemplates.
+ */
+public final class SchemaRegistry {
+
+    public static final String HISTORY_COLLECTION = "mongockSchemaVersions";
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaRegistry.class);
+
+    private SchemaRegistry() {}
+
+    public static String installedHash(MongoTemplate mongoTemplate, String collection) {
+        Document info = mongoTemplate.getDb().listCollections()
+            .filter(new Document("name", collection))
+            .first();
+        Document options = info == null ? new Document() : info.get("options", new Document());
+        return SchemaDefinition.hash(
+            options.get("validator", new Document()),
+            options.getString("validationLevel") == null ? "strict" : options.getString("validationLevel"),
+            options.getString("validationAction") == null ? "error" : options.getString("validationAction"));
+    }
+
+    public static boolean isInstalled(MongoTemplate mongoTemplate, SchemaDefinition definition) {
+        return definition.hash().equals(installedHash(mongoTemplate, definition.getCollection()));
+    }
+
+    /** Installs {@code definition} unless it already is; returns whether a collMod was issued. */
+    public static boolean apply(MongoTemplate mongoTemplate, SchemaDefinition definition) {
+        String hash = definition.hash();
+        if (hash.equals(installedHash(mongoTemplate, definition.getCollection()))) {
+            log.info("  - {} validator v{} already installed, collMod skipped",
+                definition.getCollection(), definition.getVersion());
+            return false;
+        }
+
+        Document collMod = new Document("collMod", definition.getCollection())
+            .append("validator", definition.validator())
+            .append("validationLevel", definition.getValidationLevel())
+            .append("validationAction", definition.getValidationAction());
+        // runCommand does not apply the database's write concern by itself
+        WriteConcern writeConcern = mongoTemplate.getDb().getWriteConcern();
+        if (!writeConcern.isServerDefault()) {
+            collMod.append("writeConcern", writeConcern.asDocument());
+        }
+        mongoTemplate.getDb().runCommand(collMod);
+        mongoTemplate.getCollection(HISTORY_COLLECTION).insertOne(new Document()
+            .append("collection", definition.getCollection())
+            .append("version", definition.getVersion())
+            .append("hash", hash)
+            .append("validator", definition.validator())
+            .append("validationLevel", definition.getValidationLevel())
+            .append("appliedAt", new Date()));
+        log.info("  - {} validator v{} installed", definition.getCollection(), definition.getVersion());
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.mongockdemo.migration.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a change unit that has to finish before the application serves traffic, typically schema
+ * and index changes. With {@code migration.background.enabled=true} every unmarked change unit runs
+ * on a background executor after startup; otherwise all change units block startup as usual.
+ *
+ * <p>A blocking change unit must not depend on the data written by a background one, since it may
+ * run first.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BlockingChangeUnit {
+}
@@ -0,0 +1,175 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Inserts a stream of documents in unordered {@code insertMany} batches, for seed and import change
+ * units. Rows are converted straight to {@link Document}s by the caller, bypassing the mapping
+ * converter, and only one batch is held in memory at a time.
+ *
+ * <p>A batch that partially fails (duplicate keys, validation errors) does not stop the load: the rest
+ * of the batch and the following batches are still written, and the failures are returned in the
+ * {@link Result}. Other errors, e.g. a lost connection, abort the load.
+ */
+public class BulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkLoader.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+    // Error messages kept per failed batch; the counts are always complete
+    private static final int MAX_ERRORS_PER_BATCH = 10;
+
+    private final MongoCollection<Document> collection;
+    private final int batchSize;
+    private final ChangeUnitMetrics metrics;
+    private ProgressReporter progress;
+
+    public record BatchFailure(long batch, int size, int inserted, int duplicates, List<String> errors) {
+    }
+
+    public record Result(long inserted, long duplicates, long failed, List<BatchFailure> failures) {
+
+        /** Fails the change unit when a document was rejected for anything but already being there. */
+        public Result requireOnlyDuplicates() {
+            if (failed > duplicates) {
+                BatchFailure first = failures.stream()
+                    .filter(failure -> failure.inserted() + failure.duplicates() < failure.size())
+                    .findFirst().orElseThrow();
+                throw new IllegalStateException("Bulk load rejected " + (failed - duplicates)
+                    + " document(s), first in batch " + first.batch() + ": " + first.errors());
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Writes with {@code migration.bulk-load.write-concern}, unless the template's own is stricter: a change
+     * unit that declares {@code majority} in its {@link ChangeUnitOptions} keeps it for its seed rows.
+     */
+    public BulkLoader(MongoTemplate mongoTemplate, String collectionName, MigrationProperties.BulkLoad settings,
+                      ChangeUnitMetrics metrics) {
+        this(mongoTemplate.getCollection(collectionName), settings.getBatchSize(), settings.getWriteConcern(), metrics);
+    }
+
+    private BulkLoader(MongoCollection<Document> collection, int batchSize, String configured,
+                       ChangeUnitMetrics metrics) {
+        this(collection, batchSize, WriteConcerns.stricter(collection.getWriteConcern(), writeConcern(configured)),
+            metrics);
+    }
+
+    public BulkLoader(MongoCollection<Document> collection, int batchSize, WriteConcern writeConcern,
+                      ChangeUnitMetrics metrics) {
+        this.collection = collection.withWriteConcern(writeConcern);
+        this.batchSize = batchSize;
+        this.metrics = metrics;
+    }
+
+    /** Reports every acknowledged batch to the given reporter. */
+    public BulkLoader progress(ProgressReporter progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    public <T> Result load(Stream<T> rows, Function<? super T, ? extends Document> toDocument) {
+        return load(rows.map(toDocument));
+    }
+
+    public Result load(Stream<? extends Document> documents) {
+        long inserted = 0;
+        long duplicates = 0;
+        long failed = 0;
+        List<BatchFailure> failures = new ArrayList<>();
+
+        Iterator<? extends Document> iterator = documents.iterator();
+        for (long batchNumber = 0; iterator.hasNext(); batchNumber++) {
+            List<Document> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+            BatchFailure failure = insert(batchNumber, batch);
+            int batchInserted = failure == null ? batch.size() : failure.inserted();
+            inserted += batchInserted;
+            metrics.documentsWritten(batchInserted);
+            if (progress != null) {
+                progress.advance(batch.size());
+            }
+            if (failure != null) {
+                duplicates += failure.duplicates();
+                failed += batch.size() - failure.inserted();
+                failures.add(failure);
+            }
+        }
+        return new Result(inserted, duplicates, failed, List.copyOf(failures));
+    }
+
+    private BatchFailure insert(long batchNumber, List<Document> batch) {
+        try {
+            metrics.bulkBatchTimer().record(() -> collection.insertMany(batch, new InsertManyOptions().ordered(false)));
+            return null;
+        } catch (MongoBulkWriteException e) {
+            if (e.getWriteErrors().isEmpty()) {
+                // Only the write concern failed; the documents' fate is unknown, so do not carry on
+                throw e;
+            }
+            int duplicates = 0;
+            List<String> errors = new ArrayList<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() == DUPLICATE_KEY) {
+                    duplicates++;
+                }
+                if (errors.size() < MAX_ERRORS_PER_BATCH) {
+                    errors.add("#" + error.getIndex() + " " + error.getCode() + ": " + error.getMessage());
+                }
+            }
+            BatchFailure failure = new BatchFailure(batchNumber, batch.size(), e.getWriteResult().getInsertedCount(),
+                duplicates, List.copyOf(errors));
+            log.warn("  - Batch {}: {}/{} inserted, {} duplicate(s), {} other error(s), e.g. {}", batchNumber,
+                failure.inserted(), batch.size(), duplicates, e.getWriteErrors().size() - duplicates, errors.get(0));
+            return failure;
+        }
+    }
+
+    /**
+     * A fixed _id for a seed document with the given natural key (e.g. a product name), so every run of
+     * a seed change unit inserts the same _ids and a re-run only counts duplicates. The timestamp bytes
+     * are zero, which keeps seeds ahead of generated ObjectIds in _id order; the rest is a SHA-256 prefix.
+     */
+    public static ObjectId seedId(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            byte[] id = new byte[12];
+            System.arraycopy(hash, 0, id, 4, 8);
+            return new ObjectId(id);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static WriteConcern writeConcern(String name) {
+        WriteConcern writeConcern = WriteConcern.valueOf(name);
+        if (writeConcern == null) {
+            throw new IllegalArgumentException("Unknown migration.bulk-load.write-concern: " + name);
+        }
+        return writeConcern;
+    }
+}
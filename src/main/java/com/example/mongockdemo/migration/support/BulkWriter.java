@@ -0,0 +1,99 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Accumulates unordered bulk updates and flushes them on a background thread, so the caller can keep
+ * reading the next batch while the previous one is being written. At most one batch is in flight.
+ */
+public class BulkWriter implements AutoCloseable {
+
+    private final MongoTemplate mongoTemplate;
+    private final String collectionName;
+    private final int batchSize;
+    private final ChangeUnitMetrics metrics;
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private BulkOperations pending;
+    private int pendingCount;
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+    private long written;
+
+    public BulkWriter(MongoTemplate mongoTemplate, String collectionName, int batchSize, ChangeUnitMetrics metrics) {
+        this.mongoTemplate = mongoTemplate;
+        this.collectionName = collectionName;
+        this.batchSize = batchSize;
+        this.metrics = metrics;
+    }
+
+    public void updateOne(Query query, Update update) {
+        if (pending == null) {
+            pending = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collectionName);
+        }
+        pending.updateOne(query, update);
+        if (++pendingCount >= batchSize) {
+            flushAsync();
+        }
+    }
+
+    public void flushAsync() {
+        if (pendingCount == 0) {
+            return;
+        }
+        awaitInFlight();
+        BulkOperations batch = pending;
+        pending = null;
+        pendingCount = 0;
+        inFlight = CompletableFuture.runAsync(() -> {
+            BulkWriteResult result = metrics.bulkBatchTimer().record(batch::execute);
+            written += result.getModifiedCount();
+            metrics.documentsWritten(result.getModifiedCount());
+        }, flusher);
+    }
+
+    /** Runs the callback on the writer thread once every batch handed out so far is acknowledged. */
+    public void afterWrites(Runnable callback) {
+        inFlight = inFlight.thenRunAsync(callback, flusher);
+    }
+
+    /** Flushes what is pending and blocks until every batch handed out so far is acknowledged. */
+    public void flush() {
+        flushAsync();
+        awaitInFlight();
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            flusher.shutdown();
+        }
+    }
+
+    private void awaitInFlight() {
+        try {
+            inFlight.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+}
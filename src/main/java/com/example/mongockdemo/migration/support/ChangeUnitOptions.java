@@ -0,0 +1,30 @@
+package com.example.mongockdemo.migration.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Write concern, read preference and query time limit a change unit runs with, instead of the
+ * application's MongoTemplate defaults. Applied by the template that ChangeUnitTemplates hands out;
+ * an empty value keeps the default.
+ *
+ * <p>Backfills that checkpoint their progress can use {@code w1}, since a lost write is redone from
+ * the last (journaled) checkpoint; schema and seed changes should stay on {@code majority}.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ChangeUnitOptions {
+
+    /** A WriteConcern name: {@code w1}, {@code journaled}, {@code majority}, ... */
+    String writeConcern() default "";
+
+    /** A ReadPreference name: {@code primary}, {@code secondaryPreferred}, ... */
+    String readPreference() default "";
+
+    /** maxTimeMS for MongoTemplate finds; 0 means no limit. */
+    long maxTimeMs() default 0;
+}
@@ -0,0 +1,209 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import io.mongock.api.annotations.ChangeUnit;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base type for change units that rewrite a whole collection. The collection is processed in
+ * _id-ordered chunks and the last completed _id is persisted after every chunk, so a run that
+ * dies halfway continues from the checkpoint instead of starting over.
+ */
+public abstract class ChunkedChangeUnit {
+
+    public static final String CHECKPOINT_COLLECTION = "mongockCheckpoints";
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedChangeUnit.class);
+
+    @FunctionalInterface
+    public interface ChunkProcessor {
+        /** Processes the documents matching {@code idRange} and returns how many were handled. Must be thread-safe. */
+        long process(Document idRange, BulkWriter writer);
+    }
+
+    protected long processInChunks(MongoTemplate mongoTemplate, MigrationProperties properties, String collectionName,
+                                   String phase, ProgressReporter progress, ChangeUnitMetrics metrics,
+                                   ChunkProcessor processor) {
+        String checkpointId = checkpointId(phase);
+        long processed = processRange(mongoTemplate, properties, collectionName, checkpointId,
+            null, null, progress, metrics, processor);
+        checkpoints(mongoTemplate).deleteMany(checkpointsOf(checkpointId));
+        return processed;
+    }
+
+    /**
+     * Splits the _id space into {@code migration.parallelism} ranges and processes each one on its own
+     * worker with its own cursor, bulk writer and checkpoint. The partition plan is stored with the
+     * checkpoints so a resumed run reuses the same ranges. Falls back to {@link #processInChunks} when
+     * parallelism is 1.
+     */
+    protected long processInPartitions(MongoTemplate mongoTemplate, MigrationProperties properties,
+                                       String collectionName, String phase, ProgressReporter progress,
+                                       ChangeUnitMetrics metrics, ChunkProcessor processor) {
+        if (properties.getParallelism() <= 1) {
+            return processInChunks(mongoTemplate, properties, collectionName, phase, progress, metrics, processor);
+        }
+        String checkpointId = checkpointId(phase);
+        List<Object> boundaries = partitionPlan(mongoTemplate, collectionName, checkpointId, properties.getParallelism());
+        log.info("  - Processing {} in {} partitions on {} workers",
+            collectionName, boundaries.size() + 1, properties.getParallelism());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(properties.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "migration-partition-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Long>> partitions = new ArrayList<>();
+            for (int i = 0; i <= boundaries.size(); i++) {
+                Object lower = i == 0 ? null : boundaries.get(i - 1);
+                Object upper = i == boundaries.size() ? null : boundaries.get(i);
+                String partitionId = checkpointId + "#p" + i;
+                partitions.add(workers.submit(() -> processRange(mongoTemplate, properties, collectionName,
+                    partitionId, lower, upper, progress, metrics, processor)));
+            }
+
+            long processed = 0;
+            RuntimeException failure = null;
+            for (Future<Long> partition : partitions) {
+                try {
+                    processed += partition.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IllegalStateException("Partitioned " + phase + " of "
+                            + changeUnitId() + " failed", e.getCause());
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for partitions", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            checkpoints(mongoTemplate).deleteMany(checkpointsOf(checkpointId));
+            return processed;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /** Forgets the checkpoints of a completed phase that did not go through processInChunks. */
+    protected void completePhase(MongoTemplate mongoTemplate, String phase) {
+        checkpoints(mongoTemplate).deleteMany(checkpointsOf(checkpointId(phase)));
+    }
+
+    protected void clearCheckpoints(MongoTemplate mongoTemplate) {
+        checkpoints(mongoTemplate).deleteMany(checkpointsOf(changeUnitId()));
+    }
+
+    protected String changeUnitId() {
+        return getClass().getAnnotation(ChangeUnit.class).id();
+    }
+
+    private long processRange(MongoTemplate mongoTemplate, MigrationProperties properties, String collectionName,
+                              String checkpointId, Object rangeLower, Object rangeUpper,
+                              ProgressReporter progress, ChangeUnitMetrics metrics, ChunkProcessor processor) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+        MongoCollection<Document> checkpoints = checkpoints(mongoTemplate);
+
+        Document checkpoint = checkpoints.find(new Document("_id", checkpointId)).first();
+        Object lower = rangeLower;
+        long processed = 0;
+        if (checkpoint != null) {
+            processed = checkpoint.get("processed", Number.class).longValue();
+            progress.advance(processed);
+            if (checkpoint.getBoolean("done", false)) {
+                return processed;
+            }
+            lower = checkpoint.get("lastId");
+            log.info("  - Resuming {} after _id {} ({} documents already processed)", checkpointId, lower, processed);
+        }
+
+        // A chunk's checkpoint is written on the writer thread right after its last bulk is acknowledged,
+        // so reading the next chunk still overlaps with writing the previous one
+        try (BulkWriter writer = new BulkWriter(mongoTemplate, collectionName, properties.getBulkSize(), metrics)) {
+            boolean last;
+            do {
+                Object upper = IdRanges.upperBound(collection, lower, rangeUpper, properties.getChunkSize());
+                last = upper == null;
+                if (last) {
+                    upper = rangeUpper;
+                }
+                long chunkCount = processor.process(IdRanges.range(lower, upper), writer);
+                processed += chunkCount;
+                writer.flushAsync();
+
+                Object lastId = upper;
+                long processedSoFar = processed;
+                boolean done = last;
+                writer.afterWrites(() -> {
+                    saveCheckpoint(checkpoints, checkpointId, lastId, processedSoFar, done);
+                    progress.advance(chunkCount);
+                });
+                lower = upper;
+            } while (!last);
+        }
+        return processed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> partitionPlan(MongoTemplate mongoTemplate, String collectionName,
+                                       String checkpointId, int parallelism) {
+        MongoCollection<Document> checkpoints = checkpoints(mongoTemplate);
+        String planId = checkpointId + "#plan";
+        Document plan = checkpoints.find(new Document("_id", planId)).first();
+        if (plan != null) {
+            return (List<Object>) plan.get("boundaries");
+        }
+        List<Object> boundaries = IdPartitioner.boundaries(mongoTemplate.getCollection(collectionName), parallelism);
+        checkpoints.insertOne(new Document("_id", planId)
+            .append("boundaries", boundaries)
+            .append("updatedAt", new Date()));
+        return boundaries;
+    }
+
+    private String checkpointId(String phase) {
+        return changeUnitId() + "#" + phase;
+    }
+
+    private Document checkpointsOf(String prefix) {
+        return new Document("_id", new Document("$regex", "^" + prefix + "(#|$)"));
+    }
+
+    private MongoCollection<Document> checkpoints(MongoTemplate mongoTemplate) {
+        return mongoTemplate.getCollection(CHECKPOINT_COLLECTION).withWriteConcern(WriteConcern.JOURNALED);
+    }
+
+    private void saveCheckpoint(MongoCollection<Document> checkpoints, String checkpointId,
+                                Object lastId, long processed, boolean done) {
+        checkpoints.replaceOne(
+            new Document("_id", checkpointId),
+            new Document("_id", checkpointId)
+                .append("lastId", lastId)
+                .append("processed", processed)
+                .append("done", done)
+                .append("updatedAt", new Date()),
+            new ReplaceOptions().upsert(true)
+        );
+    }
+}
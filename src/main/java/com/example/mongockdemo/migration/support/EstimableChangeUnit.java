@@ -0,0 +1,9 @@
+package com.example.mongockdemo.migration.support;
+
+import java.util.List;
+
+/** Implemented by change units whose cost can be estimated from the queries they will run. */
+public interface EstimableChangeUnit {
+
+    List<PlannedOperation> plannedOperations();
+}
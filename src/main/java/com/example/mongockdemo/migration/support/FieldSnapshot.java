@@ -0,0 +1,72 @@
+package com.example.mongockdemo.migration.support;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+/**
+ * Copies the fields a change unit is about to overwrite into a side collection with one $merge
+ * aggregation, and writes them back on rollback with another. Lossy transformations (rounding,
+ * type conversions) can then be undone exactly, without recomputing anything per document.
+ */
+public final class FieldSnapshot {
+
+    public static final String COLLECTION_PREFIX = "mongockSnapshot_";
+
+    private static final Logger log = LoggerFactory.getLogger(FieldSnapshot.class);
+
+    private FieldSnapshot() {}
+
+    public static String collectionFor(String changeUnitId) {
+        return COLLECTION_PREFIX + changeUnitId;
+    }
+
+    /**
+     * Snapshots {@code fields} (plus _id) of every document matching {@code filter}. Documents already in
+     * the snapshot are kept as they are, so a resumed run never replaces original values with ones the
+     * interrupted run had already rewritten.
+     */
+    public static void capture(MongoTemplate mongoTemplate, String collectionName, Document filter,
+                               String snapshotCollection, String... fields) {
+        Document projection = new Document("_id", 1);
+        for (String field : fields) {
+            projection.append(field, 1);
+        }
+        mongoTemplate.getCollection(collectionName).aggregate(List.of(
+            new Document("$match", filter),
+            new Document("$project", projection),
+            new Document("$merge", new Document()
+                .append("into", snapshotCollection)
+                .append("on", "_id")
+                .append("whenMatched", "keepExisting")
+                .append("whenNotMatched", "insert"))
+        )).toCollection();
+        log.info("  - Snapshot of {} {} taken into {}", collectionName, List.of(fields), snapshotCollection);
+    }
+
+    public static boolean exists(MongoTemplate mongoTemplate, String snapshotCollection) {
+        return mongoTemplate.collectionExists(snapshotCollection);
+    }
+
+    /**
+     * Merges the snapshotted fields back into {@code collectionName} and drops the snapshot. Documents
+     * deleted since the snapshot are not recreated; any later change to a snapshotted field is
+     * overwritten with its pre-migration value.
+     */
+    public static long restore(MongoTemplate mongoTemplate, String collectionName, String snapshotCollection) {
+        long documents = mongoTemplate.getCollection(snapshotCollection).estimatedDocumentCount();
+        mongoTemplate.getCollection(snapshotCollection).aggregate(List.of(
+            new Document("$merge", new Document()
+                .append("into", collectionName)
+                .append("on", "_id")
+                .append("whenMatched", "merge")
+                .append("whenNotMatched", "discard"))
+        )).toCollection();
+        mongoTemplate.dropCollection(snapshotCollection);
+        log.info("  - Restored {} {} documents from {}", documents, collectionName, snapshotCollection);
+        return documents;
+    }
+}
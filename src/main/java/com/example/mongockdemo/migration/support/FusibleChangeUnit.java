@@ -0,0 +1,182 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A chunked change unit whose data change is a per-document transformation of one collection. When
+ * the next pending change units are fusible too, the first of them (the leader) applies all of their
+ * transformations in a single pass, one cursor and one bulk writer, instead of each scanning the
+ * collection on its own. The followers still execute, and are recorded in the changelog, in their
+ * own turn; they find their marker in {@link #FUSION_COLLECTION} and only do their remaining steps.
+ *
+ * <p>Transformations are applied in change-unit order to the same in-memory document, so a later
+ * one sees what an earlier one wrote. A unit is only fused when its {@link #filter()} does not look
+ * at fields an earlier unit of the group writes, when it runs in the same Mongock run (both or
+ * neither are {@link BlockingChangeUnit}s) and when it declares the same read preference and time limit
+ * in its {@link ChangeUnitOptions} as the leader. Write concerns may differ: the leader runs the pass
+ * with the strictest one of the group (see {@code ChangeUnitTemplates.forFusedPass}), so no member's
+ * writes get a weaker guarantee than it asked for. Like any chunked run, the pass resumes from the
+ * leader's checkpoints after a failure.
+ */
+public abstract class FusibleChangeUnit extends ChunkedChangeUnit {
+
+    public static final String FUSION_COLLECTION = "mongockFusedPasses";
+
+    private static final Logger log = LoggerFactory.getLogger(FusibleChangeUnit.class);
+
+    public abstract String collection();
+
+    /** Server-side preselection; {@link #transform} must still leave non-matching documents alone. */
+    public abstract Document filter();
+
+    /** Fields {@link #transform} reads. */
+    public abstract Set<String> reads();
+
+    /** Fields {@link #transform} may set. */
+    public abstract Set<String> writes();
+
+    /**
+     * Fields to {@code $set} on this document, or an empty document to leave it untouched. A resumed
+     * pass may hand it documents it already changed, which it has to recognize by a field of its own.
+     */
+    public abstract Document transform(Document document);
+
+    /** Runs before the pass that applies {@link #transform}, e.g. to snapshot what it overwrites. */
+    public void beforeTransform(MongoTemplate mongoTemplate) {
+    }
+
+    /** The change unit whose fused pass already applied this unit's transformation, if any. */
+    protected Optional<String> fusedInto(MongoTemplate mongoTemplate) {
+        Document marker = fusion(mongoTemplate).find(new Document("_id", changeUnitId())).first();
+        return Optional.ofNullable(marker).map(found -> found.getString("leader"));
+    }
+
+    /**
+     * This unit followed by the directly following pending change units it can be fused with, or just
+     * this unit. {@code pending} is in execution order and contains this unit.
+     */
+    public List<FusibleChangeUnit> fusionGroup(List<Class<?>> pending) {
+        List<FusibleChangeUnit> group = new ArrayList<>(List.of(this));
+        Set<String> written = new LinkedHashSet<>(writes());
+        for (int i = pending.indexOf(getClass()) + 1; i > 0 && i < pending.size(); i++) {
+            if (!FusibleChangeUnit.class.isAssignableFrom(pending.get(i))) {
+                break;
+            }
+            FusibleChangeUnit next = instantiate(pending.get(i));
+            boolean sameRun = next.getClass().isAnnotationPresent(BlockingChangeUnit.class)
+                == getClass().isAnnotationPresent(BlockingChangeUnit.class);
+            boolean independentFilter = next.filter().keySet().stream().noneMatch(written::contains);
+            boolean sameReads = sameReadOptions(next.getClass().getAnnotation(ChangeUnitOptions.class),
+                getClass().getAnnotation(ChangeUnitOptions.class));
+            if (!next.collection().equals(collection()) || !sameRun || !independentFilter || !sameReads) {
+                break;
+            }
+            group.add(next);
+            written.addAll(next.writes());
+        }
+        return group;
+    }
+
+    // The read preference and time limit the pass reads with; no options means the defaults
+    private static boolean sameReadOptions(ChangeUnitOptions a, ChangeUnitOptions b) {
+        return Objects.equals(a == null ? "" : a.readPreference(), b == null ? "" : b.readPreference())
+            && (a == null ? 0 : a.maxTimeMs()) == (b == null ? 0 : b.maxTimeMs());
+    }
+
+    /**
+     * Applies every transformation of {@code group} (this unit first) in one pass and marks the
+     * followers as done. {@code mongoTemplate} should come from {@code ChangeUnitTemplates.forFusedPass}.
+     * Returns the number of documents updated.
+     */
+    protected long runFused(MongoTemplate mongoTemplate, MigrationProperties properties,
+                            List<FusibleChangeUnit> group, ChangeUnitMetrics metrics) {
+        List<FusibleChangeUnit> followers = group.subList(1, group.size());
+        log.info("  - Fusing {} into one pass over {}", group.stream().map(FusibleChangeUnit::changeUnitId)
+            .collect(Collectors.joining(", ")), collection());
+        followers.forEach(follower -> follower.beforeTransform(mongoTemplate));
+
+        List<Document> filters = group.stream().map(FusibleChangeUnit::filter).toList();
+        Document filter = filters.stream().anyMatch(Document::isEmpty) ? new Document() : new Document("$or", filters);
+        Document projection = new Document();
+        group.forEach(unit -> unit.reads().forEach(field -> projection.append(field, 1)));
+
+        MongoCollection<Document> collection = mongoTemplate.getCollection(collection());
+        ProgressReporter progress = new ProgressReporter("fused pass over " + collection(),
+            collection.estimatedDocumentCount(), properties.getProgressInterval());
+        long updated = processInPartitions(mongoTemplate, properties, collection(), "fused", progress, metrics,
+            (idRange, writer) -> {
+                long read = 0;
+                long queued = 0;
+                try (MongoCursor<Document> cursor = collection.find(new Document("$and", List.of(idRange, filter)))
+                        .projection(projection.isEmpty() ? new Document("_id", 1) : projection)
+                        .batchSize(properties.getCursorBatchSize())
+                        .iterator()) {
+                    while (cursor.hasNext()) {
+                        Document document = cursor.next();
+                        read++;
+                        Update update = new Update();
+                        for (FusibleChangeUnit unit : group) {
+                            Document changes = unit.transform(document);
+                            document.putAll(changes);
+                            changes.forEach(update::set);
+                        }
+                        if (!update.getUpdateObject().isEmpty()) {
+                            writer.updateOne(new Query(Criteria.where("_id").is(document.get("_id"))), update);
+                            queued++;
+                        }
+                    }
+                }
+                metrics.documentsRead(read);
+                return queued;
+            });
+
+        MongoCollection<Document> fusion = fusion(mongoTemplate);
+        for (FusibleChangeUnit follower : followers) {
+            fusion.replaceOne(new Document("_id", follower.changeUnitId()),
+                new Document("_id", follower.changeUnitId())
+                    .append("leader", changeUnitId())
+                    .append("updatedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+        }
+        return updated;
+    }
+
+    /** Forgets this unit's fusion markers, both as leader and as follower; called from rollbacks. */
+    protected void clearFusion(MongoTemplate mongoTemplate) {
+        fusion(mongoTemplate).deleteMany(new Document("$or", List.of(
+            new Document("_id", changeUnitId()), new Document("leader", changeUnitId()))));
+    }
+
+    private MongoCollection<Document> fusion(MongoTemplate mongoTemplate) {
+        return mongoTemplate.getCollection(FUSION_COLLECTION).withWriteConcern(WriteConcern.JOURNALED);
+    }
+
+    private static FusibleChangeUnit instantiate(Class<?> type) {
+        try {
+            return (FusibleChangeUnit) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.mongockdemo.migration.support;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class IdPartitioner {
+
+    // Sampled _ids per requested partition; enough for even ranges without scanning the collection
+    private static final int SAMPLES_PER_PARTITION = 100;
+
+    private IdPartitioner() {}
+
+    /**
+     * Splits the _id space into at most {@code partitions} ranges by running $bucketAuto over a $sample
+     * of _ids. Returns the inner boundaries in ascending order: boundary i closes range i (inclusive)
+     * and opens range i + 1, the first and last ranges are unbounded on their outer side.
+     */
+    public static List<Object> boundaries(MongoCollection<Document> collection, int partitions) {
+        List<Object> boundaries = new ArrayList<>();
+        if (partitions < 2) {
+            return boundaries;
+        }
+        List<Document> pipeline = List.of(
+            new Document("$sample", new Document("size", partitions * SAMPLES_PER_PARTITION)),
+            new Document("$project", new Document("_id", 1)),
+            new Document("$bucketAuto", new Document("groupBy", "$_id").append("buckets", partitions))
+        );
+        List<Document> buckets = collection.aggregate(pipeline).allowDiskUse(true).into(new ArrayList<>());
+        for (int i = 0; i < buckets.size() - 1; i++) {
+            boundaries.add(buckets.get(i).get("_id", Document.class).get("max"));
+        }
+        return boundaries;
+    }
+}
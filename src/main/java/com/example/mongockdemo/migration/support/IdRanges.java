@@ -0,0 +1,41 @@
+package com.example.mongockdemo.migration.support;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+
+public final class IdRanges {
+
+    private IdRanges() {}
+
+    /**
+     * Returns the _id that closes a range of {@code chunkSize} documents after {@code lowerExclusive},
+     * or null when fewer documents remain. Only the _id index is walked.
+     */
+    public static Object upperBound(MongoCollection<Document> collection, Object lowerExclusive, int chunkSize) {
+        return upperBound(collection, lowerExclusive, null, chunkSize);
+    }
+
+    /** Same as above, but never looks past {@code limitInclusive} (null means unbounded). */
+    public static Object upperBound(MongoCollection<Document> collection, Object lowerExclusive,
+                                    Object limitInclusive, int chunkSize) {
+        Document boundary = collection.find(range(lowerExclusive, limitInclusive))
+            .projection(new Document("_id", 1))
+            .sort(new Document("_id", 1))
+            .skip(chunkSize - 1)
+            .limit(1)
+            .first();
+        return boundary == null ? null : boundary.get("_id");
+    }
+
+    /** Filter for the half-open range (lowerExclusive, upperInclusive]; a null bound is left open. */
+    public static Document range(Object lowerExclusive, Object upperInclusive) {
+        Document bounds = new Document();
+        if (lowerExclusive != null) {
+            bounds.append("$gt", lowerExclusive);
+        }
+        if (upperInclusive != null) {
+            bounds.append("$lte", upperInclusive);
+        }
+        return bounds.isEmpty() ? new Document() : new Document("_id", bounds);
+    }
+}
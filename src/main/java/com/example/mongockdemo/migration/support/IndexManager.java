@@ -0,0 +1,281 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.example.mongockdemo.migration.metrics.MigrationMetrics;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Starts index builds without blocking the change unit, polls currentOp for their progress and
+ * publishes it as the {@code migration.index.build.progress} gauge. Critical indexes are awaited
+ * by {@link #awaitCritical}; the others keep building after the change unit has returned.
+ *
+ * <p>Takes the {@link MongoDatabaseFactory} rather than Mongock's lock-guarded MongoTemplate, since
+ * background builds outlive the Mongock lock. For the same reason a background build is recorded in
+ * {@value #BUILD_COLLECTION} until it succeeds: Mongock has already marked the change unit executed, so
+ * a build that failed or was cut short by a restart is started again by {@link #resumeUnfinished} on
+ * the next boot.
+ */
+public class IndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexManager.class);
+
+    public static final String BUILD_COLLECTION = "mongockIndexBuilds";
+
+    // Builds recorded before this JVM started are the ones no running process is still waiting for
+    private static final Date PROCESS_STARTED = new Date(ManagementFactory.getRuntimeMXBean().getStartTime());
+
+    private static final Executor BUILDERS = runnable -> {
+        Thread thread = new Thread(runnable, "index-build");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    private final MongoDatabaseFactory databaseFactory;
+    private final ChangeUnitMetrics metrics;
+    private final Duration pollInterval;
+    private final List<IndexBuild> critical = new ArrayList<>();
+    private final List<IndexBuild> background = new ArrayList<>();
+    // Set by whichever poller thread sees currentOp fail first
+    private volatile boolean progressUnavailable;
+
+    private record IndexBuild(String collection, String name, CompletableFuture<Void> done,
+                              AtomicReference<Double> progress) {
+    }
+
+    public IndexManager(MongoDatabaseFactory databaseFactory, ChangeUnitMetrics metrics, Duration pollInterval) {
+        this.databaseFactory = databaseFactory;
+        this.metrics = metrics;
+        this.pollInterval = pollInterval;
+    }
+
+    public void build(String collection, Document keys, boolean critical) {
+        build(collection, keys, new IndexOptions(), critical);
+    }
+
+    public void build(String collection, Document keys, IndexOptions options, boolean critical) {
+        String name = options.getName() != null ? options.getName() : defaultName(keys);
+        MongoDatabase database = databaseFactory.getMongoDatabase();
+        AtomicReference<Double> progress = new AtomicReference<>(0.0);
+        metrics.indexBuildProgress(collection, name, progress::get);
+        String buildId = collection + "." + name;
+        if (!critical) {
+            builds(database).replaceOne(new Document("_id", buildId), new Document("_id", buildId)
+                    .append("changeUnit", metrics.getChangeUnitId())
+                    .append("collection", collection)
+                    .append("keys", keys)
+                    .append("options", options(options, name))
+                    .append("status", "building")
+                    .append("startedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+        }
+
+        CompletableFuture<Void> done = CompletableFuture.runAsync(
+            () -> database.getCollection(collection).createIndex(keys, options.name(name)), BUILDERS);
+        done.whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                progress.set(1.0);
+                log.info("  - Index {}.{} ready", collection, name);
+                if (!critical) {
+                    builds(database).deleteOne(new Document("_id", buildId));
+                }
+            } else {
+                log.error("  - Index build {}.{} failed", collection, name, failure);
+                if (!critical) {
+                    recordFailure(database, buildId, failure);
+                }
+            }
+        });
+        (critical ? this.critical : this.background).add(new IndexBuild(collection, name, done, progress));
+    }
+
+    /**
+     * Starts again, in the background, every build recorded by an earlier process that did not succeed:
+     * ones that failed and ones still marked building when that process stopped. Returns how many.
+     */
+    public static int resumeUnfinished(MongoDatabaseFactory databaseFactory, MigrationMetrics metrics,
+                                       Duration pollInterval) {
+        MongoDatabase database = databaseFactory.getMongoDatabase();
+        Map<String, IndexManager> managers = new LinkedHashMap<>();
+        for (Document build : builds(database).find(new Document("startedAt", new Document("$lt", PROCESS_STARTED)))) {
+            log.info("Resuming index build {} from change unit {} ({}{})", build.getString("_id"),
+                build.getString("changeUnit"), build.getString("status"),
+                build.containsKey("error") ? ": " + build.getString("error") : "");
+            managers.computeIfAbsent(build.getString("changeUnit"),
+                    changeUnit -> new IndexManager(databaseFactory, metrics.forChangeUnit(changeUnit), pollInterval))
+                .build(build.getString("collection"), build.get("keys", Document.class),
+                    indexOptions(build.get("options", Document.class)), false);
+        }
+        managers.values().forEach(manager -> manager.awaitCritical(Duration.ZERO));
+        return managers.values().stream().mapToInt(manager -> manager.background.size()).sum();
+    }
+
+    /** Drops the recorded background builds of a change unit, so a rollback is not undone on the next boot. */
+    public static void forget(MongoDatabase database, String changeUnitId) {
+        builds(database).deleteMany(new Document("changeUnit", changeUnitId));
+    }
+
+    private static void recordFailure(MongoDatabase database, String buildId, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        try {
+            builds(database).updateOne(new Document("_id", buildId), new Document("$set",
+                new Document("status", "failed").append("error", String.valueOf(cause.getMessage()))));
+        } catch (MongoException e) {
+            // The entry still says building, which is retried on the next boot all the same
+            log.warn("  - Could not record the failed index build {}: {}", buildId, e.getMessage());
+        }
+    }
+
+    private static MongoCollection<Document> builds(MongoDatabase database) {
+        return database.getCollection(BUILD_COLLECTION).withWriteConcern(WriteConcern.JOURNALED);
+    }
+
+    /** The options background builds may use, as stored in {@value #BUILD_COLLECTION}. */
+    private static Document options(IndexOptions options, String name) {
+        Document document = new Document("name", name);
+        if (options.isUnique()) {
+            document.append("unique", true);
+        }
+        if (options.isSparse()) {
+            document.append("sparse", true);
+        }
+        if (options.getPartialFilterExpression() != null) {
+            document.append("partialFilterExpression", options.getPartialFilterExpression());
+        }
+        if (options.getWeights() != null) {
+            document.append("weights", options.getWeights());
+        }
+        return document;
+    }
+
+    private static IndexOptions indexOptions(Document document) {
+        IndexOptions options = new IndexOptions()
+            .name(document.getString("name"))
+            .unique(document.getBoolean("unique", false))
+            .sparse(document.getBoolean("sparse", false));
+        if (document.containsKey("partialFilterExpression")) {
+            options.partialFilterExpression(document.get("partialFilterExpression", Document.class));
+        }
+        if (document.containsKey("weights")) {
+            options.weights(document.get("weights", Document.class));
+        }
+        return options;
+    }
+
+    /**
+     * Blocks until every critical index is built, logging progress each poll interval, then hands the
+     * remaining builds to a background poller. Throws if a critical build fails or exceeds {@code timeout}.
+     */
+    public void awaitCritical(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (IndexBuild build : critical) {
+            while (true) {
+                try {
+                    build.done().get(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("Critical index " + build.collection() + "." + build.name()
+                            + " not ready after " + timeout);
+                    }
+                    pollProgress();
+                    log.info("  - Index {}.{} building: {}%", build.collection(), build.name(),
+                        Math.round(build.progress().get() * 100));
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Critical index " + build.collection() + "." + build.name()
+                        + " failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while building indexes", e);
+                }
+            }
+        }
+
+        List<IndexBuild> pending = background.stream().filter(build -> !build.done().isDone()).toList();
+        if (!pending.isEmpty()) {
+            log.info("  - Continuing in background: {}", pending.stream()
+                .map(build -> build.collection() + "." + build.name()).collect(Collectors.joining(", ")));
+            BUILDERS.execute(() -> {
+                while (pending.stream().anyMatch(build -> !build.done().isDone())) {
+                    pollProgress();
+                    try {
+                        Thread.sleep(pollInterval.toMillis());
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+    }
+
+    /** Reads {done, total} of every running createIndexes from currentOp into the matching gauges. */
+    private void pollProgress() {
+        if (progressUnavailable) {
+            return;
+        }
+        Document result;
+        try {
+            result = databaseFactory.getMongoDatabase("admin").runCommand(new Document("currentOp", true)
+                .append("command.createIndexes", new Document("$exists", true)));
+        } catch (MongoException e) {
+            progressUnavailable = true;
+            log.warn("  - Index build progress unavailable (currentOp failed: {})", e.getMessage());
+            return;
+        }
+
+        for (Document op : result.getList("inprog", Document.class, List.of())) {
+            Document command = op.get("command", Document.class);
+            Document progress = op.get("progress", Document.class);
+            if (command == null || progress == null
+                || !(progress.get("total") instanceof Number total) || total.doubleValue() == 0) {
+                continue;
+            }
+            double fraction = progress.get("done", Number.class).doubleValue() / total.doubleValue();
+            List<String> names = command.getList("indexes", Document.class, List.of()).stream()
+                .map(index -> index.getString("name"))
+                .toList();
+            for (IndexBuild build : allBuilds()) {
+                if (build.collection().equals(command.getString("createIndexes")) && names.contains(build.name())) {
+                    build.progress().set(fraction);
+                }
+            }
+        }
+    }
+
+    private List<IndexBuild> allBuilds() {
+        List<IndexBuild> builds = new ArrayList<>(critical);
+        builds.addAll(background);
+        return builds;
+    }
+
+    /** Same naming scheme as the server, e.g. {category: 1, rating: -1} becomes category_1_rating_-1. */
+    private static String defaultName(Document keys) {
+        return keys.entrySet().stream()
+            .map(entry -> entry.getKey() + "_" + entry.getValue())
+            .collect(Collectors.joining("_"));
+    }
+}
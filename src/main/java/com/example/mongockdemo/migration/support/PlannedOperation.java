@@ -0,0 +1,17 @@
+package com.example.mongockdemo.migration.support;
+
+import org.bson.Document;
+
+/** A query a change unit will run against {@code collection}, used to estimate its cost before executing it. */
+public record PlannedOperation(String collection, Document filter, String description, Kind kind) {
+
+    /** How the matched documents are written, which decides the measured rate the estimate uses. */
+    public enum Kind {
+        // Documents copied into another collection with bulk inserts
+        INSERT,
+        // One server-side updateMany (or one per _id range) over the filter
+        UPDATE,
+        // An updateOne per document, sent in unordered bulks
+        BULK_UPDATE
+    }
+}
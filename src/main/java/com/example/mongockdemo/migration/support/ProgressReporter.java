@@ -0,0 +1,53 @@
+package com.example.mongockdemo.migration.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Logs processed count, docs/sec and a remaining-time estimate at most once per interval. */
+public class ProgressReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressReporter.class);
+
+    private final String label;
+    private final long total;
+    private final long intervalNanos;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong lastReportNanos = new AtomicLong(startNanos);
+
+    public ProgressReporter(String label, long total, Duration interval) {
+        this.label = label;
+        this.total = total;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    public void advance(long documents) {
+        long done = processed.addAndGet(documents);
+        long now = System.nanoTime();
+        long last = lastReportNanos.get();
+        if (now - last >= intervalNanos && lastReportNanos.compareAndSet(last, now)) {
+            log.info("  - {}: {}", label, describe(done, now));
+        }
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public String summary() {
+        return describe(processed.get(), System.nanoTime());
+    }
+
+    private String describe(long done, long now) {
+        double seconds = Math.max(now - startNanos, 1) / 1_000_000_000.0;
+        double rate = done / seconds;
+        String line = String.format("%d/%d documents, %.0f docs/sec", done, total, rate);
+        if (done < total && rate > 0) {
+            line += String.format(", ~%ds remaining", Math.round((total - done) / rate));
+        }
+        return line;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the documents that would violate a $jsonSchema before it is installed, using one server-side
+ * aggregation, and either aborts or moves the violators to a quarantine collection.
+ */
+public final class SchemaPrecheck {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaPrecheck.class);
+
+    // Set on every quarantined copy to the ObjectId of the run that moved it, which also dates the move
+    static final String QUARANTINE_RUN = "quarantineRun";
+    // _ids per deleteMany when removing quarantined documents from the source collection
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private SchemaPrecheck() {}
+
+    public static long violations(MongoTemplate mongoTemplate, String collectionName, Document jsonSchema,
+                                  int sampleSize, List<Document> sample) {
+        List<Document> pipeline = List.of(
+            new Document("$match", violatorFilter(jsonSchema)),
+            new Document("$facet", new Document()
+                .append("count", List.of(new Document("$count", "n")))
+                .append("sample", List.of(
+                    new Document("$limit", sampleSize),
+                    new Document("$project", new Document("_id", 1).append("name", 1)))))
+        );
+        Document result = mongoTemplate.getCollection(collectionName).aggregate(pipeline).first();
+        if (result == null) {
+            return 0;
+        }
+        sample.addAll(result.getList("sample", Document.class));
+        List<Document> count = result.getList("count", Document.class);
+        return count.isEmpty() ? 0 : count.get(0).get("n", Number.class).longValue();
+    }
+
+    /**
+     * Checks existing documents against {@code jsonSchema}. Throws when there are more violators than
+     * {@code migration.schema-precheck.max-violations}; otherwise violators are kept (ABORT) or moved to
+     * {@code <collection>_quarantine} (QUARANTINE). Moving copies first and then deletes only the _ids
+     * that were copied, so a document that turns invalid in between stays where it is.
+     */
+    public static void enforce(MongoTemplate mongoTemplate, String collectionName, Document jsonSchema,
+                               MigrationProperties.SchemaPrecheck settings) {
+        List<Document> sample = new ArrayList<>();
+        long violations = violations(mongoTemplate, collectionName, jsonSchema, settings.getSampleSize(), sample);
+        if (violations == 0) {
+            log.info("  - Schema pre-check: no existing {} documents violate the new validator", collectionName);
+            return;
+        }
+
+        log.warn("  - Schema pre-check: {} {} documents violate the new validator, e.g. {}",
+            violations, collectionName, sample.stream().map(Document::toJson).toList());
+        if (violations > settings.getMaxViolations()) {
+            throw new IllegalStateException(violations + " " + collectionName + " documents violate the new validator"
+                + " (max " + settings.getMaxViolations() + "); fix them before tightening validation");
+        }
+        if (settings.getAction() == MigrationProperties.SchemaPrecheck.Action.QUARANTINE) {
+            String quarantine = collectionName + "_quarantine";
+            ObjectId run = new ObjectId();
+            mongoTemplate.getCollection(collectionName).aggregate(List.of(
+                new Document("$match", violatorFilter(jsonSchema)),
+                new Document("$set", new Document(QUARANTINE_RUN, run)),
+                new Document("$merge", new Document("into", quarantine).append("whenMatched", "replace"))
+            )).toCollection();
+            long moved = deleteQuarantined(mongoTemplate, collectionName, quarantine, run, jsonSchema);
+            log.warn("  - Schema pre-check: moved {} violating documents to {}", moved, quarantine);
+        }
+    }
+
+    // Deletes the documents this run copied that still violate: one fixed since its copy was taken stays
+    private static long deleteQuarantined(MongoTemplate mongoTemplate, String collectionName, String quarantine,
+                                          ObjectId run, Document jsonSchema) {
+        MongoCollection<Document> source = mongoTemplate.getCollection(collectionName);
+        long deleted = 0;
+        List<Object> ids = new ArrayList<>(DELETE_BATCH_SIZE);
+        try (MongoCursor<Document> copied = mongoTemplate.getCollection(quarantine)
+                .find(new Document(QUARANTINE_RUN, run))
+                .projection(new Document("_id", 1))
+                .batchSize(DELETE_BATCH_SIZE)
+                .iterator()) {
+            while (copied.hasNext()) {
+                ids.add(copied.next().get("_id"));
+                if (ids.size() == DELETE_BATCH_SIZE || !copied.hasNext()) {
+                    deleted += source.deleteMany(quarantinedViolators(ids, jsonSchema)).getDeletedCount();
+                    ids.clear();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    static Document quarantinedViolators(List<Object> ids, Document jsonSchema) {
+        return new Document("$and", List.of(
+            new Document("_id", new Document("$in", List.copyOf(ids))),
+            violatorFilter(jsonSchema)));
+    }
+
+    private static Document violatorFilter(Document jsonSchema) {
+        return new Document("$nor", List.of(new Document("$jsonSchema", jsonSchema)));
+    }
+}
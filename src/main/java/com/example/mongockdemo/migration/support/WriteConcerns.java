@@ -0,0 +1,36 @@
+package com.example.mongockdemo.migration.support;
+
+import com.mongodb.WriteConcern;
+
+/**
+ * Orders write concerns by the guarantee they give: more acknowledging members first ({@code majority}
+ * and tag sets above any number), then journaled above not. The timeout is not compared.
+ */
+public final class WriteConcerns {
+
+    private WriteConcerns() {
+    }
+
+    /** Whichever of the two gives the stronger guarantee; {@code a} when they are equal. */
+    public static WriteConcern stricter(WriteConcern a, WriteConcern b) {
+        return compare(b, a) > 0 ? b : a;
+    }
+
+    /** Negative, zero or positive as {@code a} gives a weaker, the same or a stronger guarantee than {@code b}. */
+    public static int compare(WriteConcern a, WriteConcern b) {
+        int members = Integer.compare(acknowledgingMembers(a), acknowledgingMembers(b));
+        if (members != 0) {
+            return members;
+        }
+        return Boolean.compare(Boolean.TRUE.equals(a.getJournal()), Boolean.TRUE.equals(b.getJournal()));
+    }
+
+    private static int acknowledgingMembers(WriteConcern writeConcern) {
+        Object w = writeConcern.getWObject();
+        if (w == null) {
+            // The server's default, which is w:1 unless the replica set configures another
+            return 1;
+        }
+        return w instanceof Integer members ? members : Integer.MAX_VALUE;
+    }
+}
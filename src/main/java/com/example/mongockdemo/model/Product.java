@@ -1,7 +1,9 @@
 package com.example.mongockdemo.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -18,6 +20,9 @@ public class Product {
     private Double rating;  // NEW FIELD
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    @TextScore
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Float score;  // relevance, only set by text searches
 
     public Product() {}
 
@@ -47,4 +52,7 @@ public class Product {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Float getScore() { return score; }
+    public void setScore(Float score) { this.score = score; }
 }
@@ -0,0 +1,14 @@
+package com.example.mongockdemo.model;
+
+import java.util.List;
+
+/**
+ * One keyset page of products in _id order. {@code nextCursor} is the _id of the last item, to be
+ * passed back as {@code after}, or null on the last page.
+ */
+public record ProductPage(List<Product> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
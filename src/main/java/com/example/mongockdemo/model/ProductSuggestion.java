@@ -0,0 +1,5 @@
+package com.example.mongockdemo.model;
+
+/** An autocomplete hit: the product and the name to show. */
+public record ProductSuggestion(String id, String name) {
+}
@@ -1,13 +1,24 @@
 package com.example.mongockdemo.repository;
 
 import com.example.mongockdemo.model.Product;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
-    List<Product> findByCategory(String category);
-    List<Product> findByNameContainingIgnoreCase(String name);
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
+
+    // $text over the weighted name/description index; sort by the @TextScore property for relevance
+    Slice<Product> findAllBy(TextCriteria criteria, Pageable pageable);
+
+    // Keyset pages in _id order; the category variants are served by the {category: 1, _id: 1} index
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+    List<Product> findByIdGreaterThanOrderByIdAsc(String after, Limit limit);
+    List<Product> findByCategoryOrderByIdAsc(String category, Limit limit);
+    List<Product> findByCategoryAndIdGreaterThanOrderByIdAsc(String category, String after, Limit limit);
 }
@@ -0,0 +1,14 @@
+package com.example.mongockdemo.repository;
+
+import com.example.mongockdemo.model.Product;
+
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Every product, optionally of one category, in _id order, read from an open cursor in batches of
+     * {@code batchSize}. The stream holds the cursor and must be closed.
+     */
+    Stream<Product> streamCatalog(String category, int batchSize);
+}
@@ -0,0 +1,27 @@
+package com.example.mongockdemo.repository;
+
+import com.example.mongockdemo.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.Stream;
+
+class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    ProductRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Stream<Product> streamCatalog(String category, int batchSize) {
+        Query query = new Query().with(Sort.by("_id")).cursorBatchSize(batchSize);
+        if (category != null && !category.isEmpty()) {
+            query.addCriteria(Criteria.where("category").is(category));
+        }
+        return mongoTemplate.stream(query, Product.class);
+    }
+}
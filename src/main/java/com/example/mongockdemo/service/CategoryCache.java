@@ -0,0 +1,64 @@
+package com.example.mongockdemo.service;
+
+import com.example.mongockdemo.config.CatalogCacheProperties;
+import com.example.mongockdemo.model.Product;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The sorted distinct product categories, read with a server-side distinct (a DISTINCT_SCAN of the
+ * category index) and kept in memory until a write invalidates them: local writes through
+ * ProductService, other instances' writes through {@link ProductChangeStreamListener}. While no
+ * change stream is open the list also expires after {@code catalog.cache.fallback-ttl}.
+ */
+@Component
+public class CategoryCache {
+
+    private record Entry(List<String> categories, long loadedAt) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final long fallbackTtlNanos;
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Entry entry;
+    private volatile boolean watched;
+
+    public CategoryCache(MongoTemplate mongoTemplate, CatalogCacheProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.fallbackTtlNanos = properties.getFallbackTtl().toNanos();
+    }
+
+    public List<String> categories() {
+        Entry current = entry;
+        if (current != null && (watched || System.nanoTime() - current.loadedAt() < fallbackTtlNanos)) {
+            return current.categories();
+        }
+        long loadingGeneration = generation.get();
+        List<String> categories = mongoTemplate.findDistinct(new Query(), "category", Product.class, String.class)
+            .stream()
+            .filter(Objects::nonNull)
+            .sorted()
+            .toList();
+        // A write that invalidated while this distinct ran may not be in it, so only cache a clean read
+        if (generation.get() == loadingGeneration) {
+            entry = new Entry(categories, System.nanoTime());
+        }
+        return categories;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        entry = null;
+    }
+
+    /** Called by the change-stream listener: while watched, entries live until invalidated. */
+    void watched(boolean watched) {
+        this.watched = watched;
+    }
+}
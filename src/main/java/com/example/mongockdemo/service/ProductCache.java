@@ -0,0 +1,126 @@
+package com.example.mongockdemo.service;
+
+import com.example.mongockdemo.config.CatalogCacheProperties;
+import com.example.mongockdemo.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Products by id in front of ProductService.getProductById, including ids that were not found. Bounded
+ * to {@code catalog.cache.products.max-size} entries over 16 stripes, each an access-ordered LRU under
+ * its own lock, and to a TTL. Local writes invalidate through ProductService, other instances' writes
+ * through {@link ProductChangeStreamListener}.
+ *
+ * <p>Cached Product instances are shared between readers and must not be modified. Reports the
+ * Micrometer cache meters ({@code cache.gets} by result, {@code cache.evictions}, {@code cache.size})
+ * tagged {@code cache=products}.
+ */
+@Component
+public class ProductCache {
+
+    private static final int STRIPES = 16;
+
+    private record Cached(Product product, long expiresAt) {
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ProductCache(CatalogCacheProperties properties, MeterRegistry registry) {
+        CatalogCacheProperties.Products config = properties.getProducts();
+        int stripeSize = Math.max(1, config.getMaxSize() / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+        this.ttlNanos = config.getTtl().toNanos();
+        this.negativeTtlNanos = config.getNegativeTtl().toNanos();
+        this.hits = Counter.builder("cache.gets").tag("cache", "products").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "products").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "products").register(registry);
+        Gauge.builder("cache.size", this, ProductCache::size).tag("cache", "products").register(registry);
+    }
+
+    public Optional<Product> get(String id, Function<String, Optional<Product>> loader) {
+        Stripe stripe = stripe(id);
+        long generation;
+        synchronized (stripe) {
+            Cached cached = stripe.get(id);
+            if (cached != null && System.nanoTime() - cached.expiresAt() < 0) {
+                hits.increment();
+                return Optional.ofNullable(cached.product());
+            }
+            generation = stripe.generation;
+        }
+        misses.increment();
+        Optional<Product> loaded = loader.apply(id);
+        long ttl = loaded.isPresent() ? ttlNanos : negativeTtlNanos;
+        synchronized (stripe) {
+            // Skip caching a read that an invalidation of this stripe may have overtaken
+            if (stripe.generation == generation) {
+                stripe.put(id, new Cached(loaded.orElse(null), System.nanoTime() + ttl));
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(String id) {
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            stripe.generation++;
+            stripe.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.generation++;
+                stripe.clear();
+            }
+        }
+    }
+
+    private double size() {
+        return Arrays.stream(stripes).mapToInt(stripe -> {
+            synchronized (stripe) {
+                return stripe.size();
+            }
+        }).sum();
+    }
+
+    private Stripe stripe(String id) {
+        return stripes[Math.floorMod(id.hashCode(), STRIPES)];
+    }
+
+    private class Stripe extends LinkedHashMap<String, Cached> {
+
+        private final int maxSize;
+        private long generation;
+
+        Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            if (size() <= maxSize) {
+                return false;
+            }
+            evictions.increment();
+            return true;
+        }
+    }
+}
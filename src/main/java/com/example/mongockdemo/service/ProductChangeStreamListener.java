@@ -0,0 +1,245 @@
+package com.example.mongockdemo.service;
+
+import com.example.mongockdemo.config.CatalogCacheProperties;
+import com.example.mongockdemo.model.Product;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Watches the products collection and invalidates the ProductCache entry of every written product and
+ * the CategoryCache on writes that can change the set of categories, whichever instance made them,
+ * and applies name and description changes to the ProductSearchIndex. Starts once the application is
+ * ready, so migrations run before it.
+ *
+ * <p>After an error the stream is reopened after the last event's resume token, so writes made while
+ * it was down are still applied to the caches. Without a usable token (first open, or the token has
+ * fallen off the oplog) both caches are cleared and the search index is rebuilt instead. The token is kept in memory only: the caches
+ * start empty with the process, so a token from a previous process has nothing left to invalidate.
+ *
+ * <p>Only created in web applications: the dry-run, generate and benchmark profiles serve no reads
+ * and exit, so they neither open a stream nor build the search index (their property files also set
+ * {@code catalog.cache.change-stream=false}).
+ *
+ * <p>Change streams need a replica set or sharded cluster. On a standalone mongod the listener stops;
+ * products then expire after their TTL and categories after {@code catalog.cache.fallback-ttl}, and the
+ * search index only sees this instance's writes.
+ */
+@Component
+@ConditionalOnWebApplication
+public class ProductChangeStreamListener implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeStreamListener.class);
+
+    // "The $changeStream stage is only supported on replica sets"
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    // The resume token is no longer in the oplog, or cannot be resumed from
+    private static final Set<Integer> RESUME_FAILED = Set.of(280, 286);
+
+    private static final Set<String> DOCUMENT_CHANGES = Set.of("insert", "update", "replace", "delete");
+
+    private static final Set<String> SEARCHED_FIELDS = Set.of("name", "description");
+
+    // Only what invalidation and the search index need: of inserted documents the searched fields, of
+    // updates whether category or a searched field changed
+    private static final Bson EVENT_FIELDS = Aggregates.project(Projections.include(
+        "operationType", "documentKey", "fullDocument.name", "fullDocument.description",
+        "updateDescription.updatedFields.category", "updateDescription.updatedFields.name",
+        "updateDescription.updatedFields.description", "updateDescription.removedFields"));
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final CategoryCache categoryCache;
+    private final ProductSearchIndex searchIndex;
+    private final CatalogCacheProperties properties;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private BsonDocument resumeToken;
+
+    public ProductChangeStreamListener(MongoTemplate mongoTemplate, ProductCache productCache,
+                                       CategoryCache categoryCache, ProductSearchIndex searchIndex,
+                                       CatalogCacheProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.categoryCache = categoryCache;
+        this.searchIndex = searchIndex;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isChangeStream()) {
+            searchIndex.rebuild();
+            return;
+        }
+        running = true;
+        thread = new Thread(this::watch, "product-change-stream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        MongoChangeStreamCursor<?> open = cursor;
+        if (open != null) {
+            open.close();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void watch() {
+        String collection = mongoTemplate.getCollectionName(Product.class);
+        while (running) {
+            try {
+                watchOnce(collection);
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    log.info("Change streams are not available; cached products expire after {}, categories after {}",
+                        properties.getProducts().getTtl(), properties.getFallbackTtl());
+                    searchIndex.rebuild();
+                    return;
+                }
+                if (RESUME_FAILED.contains(e.getErrorCode())) {
+                    log.warn("Cannot resume the product change stream, clearing the caches: {}", e.getMessage());
+                    resumeToken = null;
+                    continue;
+                }
+                retryAfter(e);
+            } catch (MongoException | IllegalStateException e) {
+                // IllegalStateException: the cursor was closed by destroy()
+                retryAfter(e);
+            }
+        }
+    }
+
+    // Returns on an invalidate event (e.g. after a drop) so the stream is reopened
+    private void watchOnce(String collection) {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection).watch(List.of(EVENT_FIELDS));
+        if (resumeToken != null) {
+            stream.resumeAfter(resumeToken);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> changes = stream.cursor()) {
+            cursor = changes;
+            if (resumeToken == null) {
+                productCache.invalidateAll();
+                categoryCache.invalidate();
+                searchIndex.rebuild();
+            }
+            categoryCache.watched(true);
+            searchIndex.watched(true);
+            log.info("Watching {} for product changes{}", collection, resumeToken == null ? "" : " (resumed)");
+            while (running) {
+                ChangeStreamDocument<Document> change = changes.tryNext();
+                if (change != null) {
+                    apply(change);
+                    if ("invalidate".equals(change.getOperationTypeString())) {
+                        // An invalidated stream cannot be resumed; reopen from now
+                        resumeToken = null;
+                        return;
+                    }
+                }
+                // Advances with every getMore, so an idle stream's token does not fall off the oplog
+                BsonDocument token = changes.getResumeToken();
+                if (token != null) {
+                    resumeToken = token;
+                }
+            }
+        } finally {
+            cursor = null;
+            categoryCache.watched(false);
+            searchIndex.watched(false);
+        }
+    }
+
+    private void apply(ChangeStreamDocument<Document> change) {
+        String operation = change.getOperationTypeString();
+        if (!DOCUMENT_CHANGES.contains(operation)) {
+            // drop, rename, dropDatabase, invalidate
+            productCache.invalidateAll();
+            categoryCache.invalidate();
+            return;
+        }
+        String id = id(change.getDocumentKey().get("_id"));
+        productCache.invalidate(id);
+        applySearch(operation, id, change);
+        boolean categoryChanged = !"update".equals(operation)
+            || change.getUpdateDescription() == null
+            || change.getUpdateDescription().getUpdatedFields() != null
+                && change.getUpdateDescription().getUpdatedFields().containsKey("category")
+            || change.getUpdateDescription().getRemovedFields() != null
+                && change.getUpdateDescription().getRemovedFields().contains("category");
+        if (categoryChanged) {
+            categoryCache.invalidate();
+        }
+    }
+
+    private void applySearch(String operation, String id, ChangeStreamDocument<Document> change) {
+        switch (operation) {
+            case "delete" -> searchIndex.remove(id);
+            case "update" -> {
+                UpdateDescription update = change.getUpdateDescription();
+                boolean searchedChanged = update == null
+                    || update.getUpdatedFields() != null && SEARCHED_FIELDS.stream().anyMatch(update.getUpdatedFields()::containsKey)
+                    || update.getRemovedFields() != null && update.getRemovedFields().stream().anyMatch(SEARCHED_FIELDS::contains);
+                // Rating backfills and price changes do not touch the index
+                if (searchedChanged) {
+                    searchIndex.refresh(id);
+                }
+            }
+            default -> {
+                Document product = change.getFullDocument();
+                if (product == null) {
+                    searchIndex.refresh(id);
+                } else {
+                    searchIndex.put(id, product.getString("name"), product.getString("description"));
+                }
+            }
+        }
+    }
+
+    // Product ids are ObjectId hex strings when they are valid ObjectIds, plain strings otherwise
+    private static String id(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void retryAfter(RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        log.warn("Product change stream failed, reopening in {}: {}", properties.getRetryInterval(), e.getMessage());
+        try {
+            Thread.sleep(properties.getRetryInterval().toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
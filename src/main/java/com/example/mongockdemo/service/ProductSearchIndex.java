@@ -0,0 +1,459 @@
+package com.example.mongockdemo.service;
+
+import com.example.mongockdemo.config.SuggestProperties;
+import com.example.mongockdemo.model.Product;
+import com.example.mongockdemo.model.ProductSuggestion;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory autocomplete over product names and descriptions, for /api/products/suggest. Every
+ * product gets a dense int ordinal; each term maps to an append-only int array of ordinals (tagged
+ * with whether the term is in the name), and the terms are kept sorted so a typed prefix is a range
+ * of the dictionary. A suggestion is a product that has every complete word of the query and a term
+ * starting with the last, partial one, name matches first.
+ *
+ * <p>Built by streaming the collection on a background thread, started by
+ * {@link ProductChangeStreamListener} whenever it has no resume token, then kept current from change
+ * events, or from this instance's writes while there is no change stream. A changed product gets a
+ * new ordinal and the old one is marked dead; once more than a quarter of the ordinals are dead the
+ * index is compacted in place, renumbering the live ones and dropping the dead from every posting
+ * list. Until the first build completes {@link #isReady()} is false.
+ */
+@Component
+public class ProductSearchIndex implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Document FIELDS = new Document("name", 1).append("description", 1);
+
+    // Compact once this many ordinals are dead and they are more than a quarter of all ordinals
+    static final int COMPACT_MIN_DEAD = 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final SuggestProperties properties;
+    private final AtomicLong builds = new AtomicLong();
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggest-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Writers synchronize on this; readers only take the serving index's read lock
+    private volatile Index serving;
+    private Index building;
+    private volatile boolean watched;
+
+    public ProductSearchIndex(MongoTemplate mongoTemplate, SuggestProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+    }
+
+    public boolean isReady() {
+        return serving != null;
+    }
+
+    /** True while the change stream applies every write, so local writes need not be applied too. */
+    public boolean isWatched() {
+        return watched;
+    }
+
+    /** Called by the change-stream listener while its stream is open. */
+    void watched(boolean watched) {
+        this.watched = watched;
+    }
+
+    public List<ProductSuggestion> suggest(String query, Integer limit) {
+        Index index = serving;
+        if (index == null || query == null) {
+            return List.of();
+        }
+        int size = limit == null ? properties.getLimit() : Math.max(1, Math.min(limit, properties.getMaxLimit()));
+        return index.suggest(query, size, properties.getMaxPrefixTerms(), properties.getMaxCandidates());
+    }
+
+    /** Builds a fresh index from the collection in the background; the current one serves meanwhile. */
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long build = builds.incrementAndGet();
+        Index index = new Index();
+        synchronized (this) {
+            building = index;
+        }
+        builder.execute(() -> build(build, index));
+    }
+
+    public void put(String id, String name, String description) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String indexed = properties.isIndexDescription() ? description : null;
+        synchronized (this) {
+            if (serving != null) {
+                serving.put(id, name, indexed);
+            }
+            if (building != null) {
+                building.touched.add(id);
+                building.put(id, name, indexed);
+            }
+        }
+    }
+
+    public void remove(String id) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            if (serving != null) {
+                serving.remove(id);
+            }
+            if (building != null) {
+                building.touched.add(id);
+                building.remove(id);
+            }
+        }
+    }
+
+    /** Re-reads one product, for updates whose event does not carry the new name and description. */
+    public void refresh(String id) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Document product = products().find(new Document("_id", ObjectId.isValid(id) ? new ObjectId(id) : id))
+            .projection(FIELDS)
+            .first();
+        if (product == null) {
+            remove(id);
+        } else {
+            put(id, product.getString("name"), product.getString("description"));
+        }
+    }
+
+    /** Dead ordinals in the serving index, not yet reclaimed by a compaction. */
+    int deadOrdinals() {
+        Index index = serving;
+        return index == null ? 0 : index.dead;
+    }
+
+    @Override
+    public void destroy() {
+        builder.shutdownNow();
+    }
+
+    private void build(long build, Index index) {
+        long started = System.nanoTime();
+        try (MongoCursor<Document> cursor = products().find()
+                .projection(FIELDS)
+                .batchSize(properties.getCursorBatchSize())
+                .iterator()) {
+            while (cursor.hasNext()) {
+                if (builds.get() != build) {
+                    return;
+                }
+                Document product = cursor.next();
+                String id = id(product.get("_id"));
+                synchronized (this) {
+                    // Written by a change event since the build started: the event's version is newer
+                    if (!index.touched.contains(id)) {
+                        index.put(id, product.getString("name"),
+                            properties.isIndexDescription() ? product.getString("description") : null);
+                    }
+                }
+            }
+        } catch (MongoException e) {
+            log.warn("Suggest index build failed, keeping the previous index: {}", e.getMessage());
+            synchronized (this) {
+                if (building == index) {
+                    building = null;
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            if (building != index) {
+                return;
+            }
+            index.touched.clear();
+            serving = index;
+            building = null;
+        }
+        log.info("Suggest index built: {} products, {} terms in {} ms", index.products(), index.terms(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private MongoCollection<Document> products() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class));
+    }
+
+    private static String id(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+
+    private static Set<String> tokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /** Ordinals in ascending order, each shifted left by one with the low bit set for name terms. */
+    private static final class Postings {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /** Renumbers by {@code renumbered}, dropping ordinals mapped to -1; returns the new size. */
+        int compact(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = renumbered[values[i] >>> 1];
+                if (ordinal >= 0) {
+                    values[kept++] = ordinal << 1 | values[i] & 1;
+                }
+            }
+            size = kept;
+            if (values.length > 4 && values.length > size * 4) {
+                values = Arrays.copyOf(values, Math.max(4, size * 2));
+            }
+            return size;
+        }
+
+        /** 1 if the ordinal has the term in its name, 0 in its description only, -1 not at all. */
+        int find(int ordinal) {
+            if (Arrays.binarySearch(values, 0, size, ordinal << 1 | 1) >= 0) {
+                return 1;
+            }
+            return Arrays.binarySearch(values, 0, size, ordinal << 1) >= 0 ? 0 : -1;
+        }
+    }
+
+    private record Candidate(int ordinal, int nameMatches) {
+    }
+
+    private static final class Index {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+        // Ids written by change events while this index was being built
+        private final Set<String> touched = new HashSet<>();
+        private String[] ids = new String[1024];
+        // Null once the ordinal's product was changed or deleted
+        private String[] names = new String[1024];
+        private int size;
+        private int dead;
+
+        void put(String id, String name, String description) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+                if (name == null) {
+                    return;
+                }
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                int ordinal = size++;
+                ids[ordinal] = id;
+                names[ordinal] = name;
+                ordinals.put(id, ordinal);
+                Set<String> nameTerms = tokens(name);
+                nameTerms.forEach(term -> terms.computeIfAbsent(term, key -> new Postings()).add(ordinal << 1 | 1));
+                if (description != null) {
+                    for (String term : tokens(description)) {
+                        if (!nameTerms.contains(term)) {
+                            terms.computeIfAbsent(term, key -> new Postings()).add(ordinal << 1);
+                        }
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String id) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(String id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            ids[ordinal] = null;
+            names[ordinal] = null;
+            dead++;
+            if (dead >= COMPACT_MIN_DEAD && dead > size / 4) {
+                compactLocked();
+            }
+        }
+
+        // Live ordinals keep their order, so every posting list stays sorted
+        private void compactLocked() {
+            int[] renumbered = new int[size];
+            int live = 0;
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if (names[ordinal] == null) {
+                    renumbered[ordinal] = -1;
+                } else {
+                    renumbered[ordinal] = live;
+                    ids[live] = ids[ordinal];
+                    names[live] = names[ordinal];
+                    live++;
+                }
+            }
+            int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, live)) * 2);
+            ids = Arrays.copyOf(ids, Math.min(ids.length, capacity));
+            names = Arrays.copyOf(names, ids.length);
+            Arrays.fill(ids, live, ids.length, null);
+            Arrays.fill(names, live, names.length, null);
+            ordinals.replaceAll((id, ordinal) -> renumbered[ordinal]);
+            terms.values().removeIf(postings -> postings.compact(renumbered) == 0);
+            log.debug("Suggest index compacted: {} dead ordinals reclaimed, {} live", dead, live);
+            size = live;
+            dead = 0;
+        }
+
+        List<ProductSuggestion> suggest(String query, int limit, int maxPrefixTerms, int maxCandidates) {
+            List<String> words = new ArrayList<>(tokens(query));
+            if (words.isEmpty()) {
+                return List.of();
+            }
+            // The last word is still being typed unless the query ends in a separator
+            boolean partial = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+            String prefix = partial ? words.remove(words.size() - 1) : null;
+
+            lock.readLock().lock();
+            try {
+                List<Postings> complete = new ArrayList<>();
+                for (String word : words) {
+                    Postings postings = terms.get(word);
+                    if (postings == null) {
+                        return List.of();
+                    }
+                    complete.add(postings);
+                }
+                List<Postings> prefixed = prefix == null ? List.of()
+                    : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().stream()
+                        .limit(maxPrefixTerms)
+                        .toList();
+                if (prefix != null && prefixed.isEmpty()) {
+                    return List.of();
+                }
+
+                // Candidates come from the rarest complete word, or else from the prefix's terms
+                List<Postings> sources = complete.isEmpty() ? prefixed
+                    : List.of(complete.stream().min(Comparator.comparingInt(postings -> postings.size)).orElseThrow());
+                Set<Integer> seen = new HashSet<>();
+                List<Candidate> matches = new ArrayList<>();
+                scan:
+                for (Postings source : sources) {
+                    for (int i = 0; i < source.size; i++) {
+                        int ordinal = source.values[i] >>> 1;
+                        if (names[ordinal] == null || !seen.add(ordinal)) {
+                            continue;
+                        }
+                        int nameMatches = matches(ordinal, complete, prefixed);
+                        if (nameMatches >= 0) {
+                            matches.add(new Candidate(ordinal, nameMatches));
+                        }
+                        if (seen.size() >= maxCandidates) {
+                            break scan;
+                        }
+                    }
+                }
+
+                return matches.stream()
+                    .sorted(Comparator.comparingInt(Candidate::nameMatches).reversed()
+                        .thenComparingInt(candidate -> names[candidate.ordinal()].length())
+                        .thenComparing(candidate -> names[candidate.ordinal()]))
+                    .limit(limit)
+                    .map(candidate -> new ProductSuggestion(ids[candidate.ordinal()], names[candidate.ordinal()]))
+                    .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // How many query words the product has in its name, or -1 if it lacks one of them
+        private static int matches(int ordinal, List<Postings> complete, List<Postings> prefixed) {
+            int nameMatches = 0;
+            for (Postings postings : complete) {
+                int found = postings.find(ordinal);
+                if (found < 0) {
+                    return -1;
+                }
+                nameMatches += found;
+            }
+            if (!prefixed.isEmpty()) {
+                int best = -1;
+                for (Postings postings : prefixed) {
+                    best = Math.max(best, postings.find(ordinal));
+                    if (best == 1) {
+                        break;
+                    }
+                }
+                if (best < 0) {
+                    return -1;
+                }
+                nameMatches += best;
+            }
+            return nameMatches;
+        }
+
+        int products() {
+            return ordinals.size();
+        }
+
+        int terms() {
+            return terms.size();
+        }
+    }
+}
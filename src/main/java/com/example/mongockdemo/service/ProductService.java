@@ -1,42 +1,121 @@
 package com.example.mongockdemo.service;
 
+import com.example.mongockdemo.config.ExportProperties;
+import com.example.mongockdemo.migration.runner.MigrationStatus;
 import com.example.mongockdemo.model.Product;
+import com.example.mongockdemo.model.ProductPage;
+import com.example.mongockdemo.model.ProductSuggestion;
 import com.example.mongockdemo.repository.ProductRepository;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
     
     private final ProductRepository productRepository;
+    private final MigrationStatus migrationStatus;
+    private final ExportProperties exportProperties;
+    private final CategoryCache categoryCache;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, MigrationStatus migrationStatus,
+                          ExportProperties exportProperties, CategoryCache categoryCache,
+                          ProductCache productCache, ProductSearchIndex searchIndex) {
         this.productRepository = productRepository;
+        this.migrationStatus = migrationStatus;
+        this.exportProperties = exportProperties;
+        this.categoryCache = categoryCache;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * A page of at most {@code limit} products (clamped to 1..MAX_PAGE_SIZE) with an _id greater than
+     * {@code after}, optionally of one category. Seeks on the _id index, or {category: 1, _id: 1}, so
+     * every page costs the same however deep it is.
+     */
+    public ProductPage getProducts(String category, String after, Integer limit) {
+        if (after != null && !ObjectId.isValid(after)) {
+            throw new IllegalArgumentException("Invalid cursor: " + after);
+        }
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells whether there is a next page without a count
+        Limit fetch = Limit.of(size + 1);
+        boolean byCategory = category != null && !category.isEmpty();
+        List<Product> products;
+        if (byCategory) {
+            products = after == null
+                ? productRepository.findByCategoryOrderByIdAsc(category, fetch)
+                : productRepository.findByCategoryAndIdGreaterThanOrderByIdAsc(category, after, fetch);
+        } else {
+            products = after == null
+                ? productRepository.findAllByOrderByIdAsc(fetch)
+                : productRepository.findByIdGreaterThanOrderByIdAsc(after, fetch);
+        }
+        if (products.size() <= size) {
+            return new ProductPage(products, null);
+        }
+        List<Product> items = products.subList(0, size);
+        return new ProductPage(List.copyOf(items), items.get(size - 1).getId());
     }
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    /** The whole catalog, or one category, from an open cursor; close the stream to release it. */
+    public Stream<Product> streamProducts(String category) {
+        return productRepository.streamCatalog(category, exportProperties.getCursorBatchSize());
     }
 
     public Optional<Product> getProductById(String id) {
-        return productRepository.findById(id);
+        return productCache.get(id, productRepository::findById);
     }
 
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+    /**
+     * Products matching {@code query} (words, "phrases", -exclusions) in name or description, best
+     * match first, one page of at most {@code limit} at a time. The server scores every match of the
+     * text index either way, so a page costs about the same at any depth.
+     */
+    public Slice<Product> searchProducts(String query, Integer page, Integer limit) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // _id breaks ties between equal scores so pages do not overlap
+        PageRequest request = PageRequest.of(page == null ? 0 : Math.max(0, page), size, Sort.by("score", "id"));
+        return productRepository.findAllBy(TextCriteria.forDefaultLanguage().matching(query), request);
     }
 
-    public List<Product> searchProducts(String query) {
-        return productRepository.findByNameContainingIgnoreCase(query);
+    /** Autocomplete from memory; empty until the search index is built (see {@link #isSuggestReady()}). */
+    public List<ProductSuggestion> suggestProducts(String query, Integer limit) {
+        return searchIndex.suggest(query, limit);
+    }
+
+    public boolean isSuggestReady() {
+        return searchIndex.isReady();
     }
 
     public Product createProduct(Product product) {
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        // Drops a cached "not found" for an id the client chose
+        productCache.invalidate(saved.getId());
+        categoryCache.invalidate();
+        // With a change stream open its event updates the index; applying the write here as well
+        // would only leave a dead ordinal behind
+        if (!searchIndex.isWatched()) {
+            searchIndex.put(saved.getId(), saved.getName(), saved.getDescription());
+        }
+        return saved;
     }
 
     public Product updateProduct(String id, Product product) {
@@ -50,18 +129,30 @@ public class ProductService {
         existing.setStockQuantity(product.getStockQuantity());
         existing.setUpdatedAt(LocalDateTime.now());
         
-        return productRepository.save(existing);
+        Product saved = productRepository.save(existing);
+        productCache.invalidate(id);
+        categoryCache.invalidate();
+        if (!searchIndex.isWatched()) {
+            searchIndex.put(id, saved.getName(), saved.getDescription());
+        }
+        return saved;
     }
 
     public void deleteProduct(String id) {
         productRepository.deleteById(id);
+        productCache.invalidate(id);
+        categoryCache.invalidate();
+        if (!searchIndex.isWatched()) {
+            searchIndex.remove(id);
+        }
+    }
+
+    /** True once the given change unit is applied; background change units may still be running after startup. */
+    public boolean isMigrationCompleted(String changeUnitId) {
+        return migrationStatus.isCompleted(changeUnitId);
     }
 
     public List<String> getCategories() {
-        return productRepository.findAll().stream()
-            .map(Product::getCategory)
-            .distinct()
-            .sorted()
-            .toList();
+        return categoryCache.categories();
     }
 }
@@ -0,0 +1,84 @@
+package com.example.mongockdemo.controller;
+
+import com.example.mongockdemo.config.ExportProperties;
+import com.example.mongockdemo.model.Product;
+import com.example.mongockdemo.model.ProductPage;
+import com.example.mongockdemo.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductRestControllerTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(
+        new ProductRestController(productService, new ExportProperties(), new ObjectMapper().findAndRegisterModules())).build();
+
+    @Test
+    void nextPageIsLinkedWithTheCursorReplacingAfter() throws Exception {
+        String after = new ObjectId().toHexString();
+        String next = new ObjectId().toHexString();
+        when(productService.getProducts("Office", after, 2)).thenReturn(new ProductPage(List.of(new Product()), next));
+
+        // In the query string, which the link is built from, rather than as form parameters
+        mvc.perform(get("/api/products/category/Office?after={after}&limit=2", after))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", next))
+            .andExpect(header().string("Link",
+                "<http://localhost/api/products/category/Office?limit=2&after=" + next + ">; rel=\"next\""));
+    }
+
+    @Test
+    void lastPageHasNoNextLink() throws Exception {
+        when(productService.getProducts(null, null, null)).thenReturn(new ProductPage(List.of(), null));
+
+        mvc.perform(get("/api/products"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Link"))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void gzipIsOnlyUsedWhenAcceptEncodingAllowsIt() {
+        assertThat(ProductRestController.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(ProductRestController.acceptsGzip("br;q=1.0, GZIP;q=0.5")).isTrue();
+        assertThat(ProductRestController.acceptsGzip("*")).isTrue();
+        assertThat(ProductRestController.acceptsGzip("x-gzip")).isTrue();
+
+        assertThat(ProductRestController.acceptsGzip(null)).isFalse();
+        assertThat(ProductRestController.acceptsGzip("identity")).isFalse();
+        assertThat(ProductRestController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ProductRestController.acceptsGzip("gzip; q=0.0, deflate")).isFalse();
+        assertThat(ProductRestController.acceptsGzip("*;q=0.5, gzip;q=0")).isFalse();
+        assertThat(ProductRestController.acceptsGzip("*;q=0")).isFalse();
+    }
+
+    @Test
+    void exportIsNotCompressedWhenGzipIsRefused() throws Exception {
+        mvc.perform(get("/api/products/export").header("Accept-Encoding", "gzip;q=0, identity"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Content-Encoding"));
+        mvc.perform(get("/api/products/export").header("Accept-Encoding", "gzip"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"));
+    }
+
+    @Test
+    void invalidCursorIsABadRequest() throws Exception {
+        when(productService.getProducts(null, "bogus", null)).thenThrow(new IllegalArgumentException("Invalid cursor: bogus"));
+
+        mvc.perform(get("/api/products").param("after", "bogus"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.mongockdemo.migration;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpdateElectronicsPricesTest {
+
+    private final UpdateElectronicsPrices changeUnit = new UpdateElectronicsPrices();
+
+    @Test
+    void discountsStringAndDecimalPrices() {
+        Document fromString = changeUnit.transform(new Document("category", "Electronics").append("price", "1299.99"));
+        Document fromDecimal = changeUnit.transform(new Document("category", "Electronics")
+            .append("price", new Decimal128(new BigDecimal("1299.99"))));
+
+        assertThat(fromString.get("price")).isEqualTo(new Decimal128(new BigDecimal("1169.9910")));
+        assertThat(fromDecimal.get("price")).isEqualTo(new Decimal128(new BigDecimal("1169.9910")));
+        assertThat(fromString.get("updatedAt")).isInstanceOf(Date.class);
+    }
+
+    @Test
+    void leavesOtherCategoriesAndMissingPricesAlone() {
+        assertThat(changeUnit.transform(new Document("category", "Furniture").append("price", "10"))).isEmpty();
+        assertThat(changeUnit.transform(new Document("category", "Electronics"))).isEmpty();
+    }
+
+    @Test
+    void productsEditedSinceThePassStartedAreStillDiscounted() {
+        // updatedAt is also stamped by the API and the seed change units, so it says nothing about this unit
+        Document edited = changeUnit.transform(new Document("category", "Electronics").append("price", "100")
+            .append("updatedAt", new Date(System.currentTimeMillis() + 3_600_000)));
+
+        assertThat(edited.get("price")).isEqualTo(new Decimal128(new BigDecimal("90.00")));
+        assertThat(edited.get(UpdateElectronicsPrices.RUN_FIELD)).isEqualTo(UpdateElectronicsPrices.EXECUTION);
+    }
+
+    @Test
+    void productsMarkedByAnInterruptedAttemptAreNotDiscountedTwice() {
+        Document marked = new Document("category", "Electronics").append("price", "90.00")
+            .append(UpdateElectronicsPrices.RUN_FIELD, UpdateElectronicsPrices.EXECUTION);
+
+        assertThat(changeUnit.transform(marked)).isEmpty();
+    }
+
+    @Test
+    void chunkFilterExcludesProductsMarkedByThePhase() {
+        assertThat(UpdateElectronicsPrices.pendingElectronics(UpdateElectronicsPrices.ROLLBACK))
+            .isEqualTo(new Document("category", "Electronics")
+                .append(UpdateElectronicsPrices.RUN_FIELD, new Document("$ne", UpdateElectronicsPrices.ROLLBACK)));
+    }
+}
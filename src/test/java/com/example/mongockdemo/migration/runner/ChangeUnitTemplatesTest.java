@@ -0,0 +1,57 @@
+package com.example.mongockdemo.migration.runner;
+
+import com.example.mongockdemo.migration.AddRatingFieldWithValidation;
+import com.example.mongockdemo.migration.UpdateElectronicsPrices;
+import com.example.mongockdemo.migration.support.ChangeUnitOptions;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChangeUnitTemplatesTest {
+
+    @Test
+    void fusedPassUsesTheStrictestWriteConcernOfTheGroup() {
+        assertThat(ChangeUnitTemplates.strictestWriteConcern(List.of(W1.class, Majority.class), WriteConcern.W1))
+            .isEqualTo("majority");
+        assertThat(ChangeUnitTemplates.strictestWriteConcern(List.of(Majority.class, W1.class), WriteConcern.W1))
+            .isEqualTo("majority");
+        // A unit without options writes with the default, here stricter than w1
+        assertThat(ChangeUnitTemplates.strictestWriteConcern(List.of(W1.class, Default.class), WriteConcern.MAJORITY))
+            .isEmpty();
+        assertThat(ChangeUnitTemplates.strictestWriteConcern(List.of(Default.class, W1.class), WriteConcern.ACKNOWLEDGED))
+            .isEmpty();
+    }
+
+    @Test
+    void electronicsPricesLeadTheFusedPassWithTheInjectedTemplate() {
+        MongoTemplate injected = mock(MongoTemplate.class);
+        MongoDatabase database = mock(MongoDatabase.class);
+        when(injected.getDb()).thenReturn(database);
+        when(database.getWriteConcern()).thenReturn(WriteConcern.MAJORITY);
+        ChangeUnitTemplates templates = new ChangeUnitTemplates(mock(MongoDatabaseFactory.class), mock(MongoConverter.class));
+
+        // 003 declares no options and its default is stricter than 006's w1
+        assertThat(templates.forFusedPass(List.of(new UpdateElectronicsPrices(), new AddRatingFieldWithValidation()),
+            injected)).isSameAs(injected);
+    }
+
+    @ChangeUnitOptions(writeConcern = "w1")
+    static class W1 {
+    }
+
+    @ChangeUnitOptions(writeConcern = "majority")
+    static class Majority {
+    }
+
+    static class Default {
+    }
+}
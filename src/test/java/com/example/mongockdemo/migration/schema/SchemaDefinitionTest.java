@@ -0,0 +1,66 @@
+package com.example.mongockdemo.migration.schema;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchemaDefinitionTest {
+
+    @Test
+    void hashIgnoresTheServersFieldOrder() {
+        Document declared = ProductSchemas.V1.validator();
+        // listCollections may return the keys of every level in a different order than they were declared
+        Document reordered = Document.parse(declared.toJson());
+        Document schema = reordered.get("$jsonSchema", Document.class);
+        Document shuffled = new Document()
+            .append("properties", reversed(schema.get("properties", Document.class)))
+            .append("required", schema.get("required"))
+            .append("bsonType", schema.get("bsonType"));
+
+        assertThat(SchemaDefinition.hash(new Document("$jsonSchema", shuffled), "moderate", "error"))
+            .isEqualTo(ProductSchemas.V1.hash());
+    }
+
+    @Test
+    void hashKeepsArrayOrder() {
+        Document validator = new Document("$jsonSchema", new Document("required", List.of("name", "price")));
+        Document swapped = new Document("$jsonSchema", new Document("required", List.of("price", "name")));
+
+        assertThat(SchemaDefinition.hash(validator, "strict", "error"))
+            .isNotEqualTo(SchemaDefinition.hash(swapped, "strict", "error"));
+    }
+
+    @Test
+    void hashCoversLevelActionAndEveryVersion() {
+        Document validator = ProductSchemas.V1.validator();
+
+        assertThat(SchemaDefinition.hash(validator, "moderate", "error")).isEqualTo(ProductSchemas.V1.hash())
+            .hasSize(64);
+        assertThat(SchemaDefinition.hash(validator, "strict", "error")).isNotEqualTo(ProductSchemas.V1.hash());
+        assertThat(SchemaDefinition.hash(validator, "moderate", "warn")).isNotEqualTo(ProductSchemas.V1.hash());
+        assertThat(List.of(ProductSchemas.V0, ProductSchemas.V1, ProductSchemas.V2, ProductSchemas.V3).stream()
+            .map(SchemaDefinition::hash)
+            .distinct())
+            .hasSize(4);
+    }
+
+    @Test
+    void noValidatorRendersAnEmptyDocument() {
+        assertThat(ProductSchemas.V0.hasValidator()).isFalse();
+        assertThat(ProductSchemas.V0.validator()).isEmpty();
+        assertThat(ProductSchemas.V0.hash()).isEqualTo(SchemaDefinition.hash(new Document(), "off", "error"));
+    }
+
+    private static Document reversed(Document document) {
+        Document reversed = new Document();
+        List<String> keys = List.copyOf(document.keySet());
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            Object value = document.get(keys.get(i));
+            reversed.append(keys.get(i), value instanceof Document nested ? reversed(nested) : value);
+        }
+        return reversed;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.example.mongockdemo.migration.metrics.ChangeUnitMetrics;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.InsertManyResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkLoaderTest {
+
+    @Test
+    void duplicatesAreCountedAndLaterBatchesStillWritten() {
+        MongoCollection<Document> collection = collection();
+        doThrow(bulkFailure(1, error(0, 11000)))
+            .doReturn(InsertManyResult.acknowledged(Map.of()))
+            .when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+        BulkLoader.Result result = new BulkLoader(collection, 2, WriteConcern.MAJORITY, ChangeUnitMetrics.NOOP)
+            .load(documents(3))
+            .requireOnlyDuplicates();
+
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.duplicates()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.failures()).singleElement()
+            .satisfies(failure -> {
+                assertThat(failure.batch()).isZero();
+                assertThat(failure.size()).isEqualTo(2);
+                assertThat(failure.inserted()).isEqualTo(1);
+                assertThat(failure.duplicates()).isEqualTo(1);
+            });
+        verify(collection, times(2)).insertMany(anyList(), any(InsertManyOptions.class));
+    }
+
+    @Test
+    void otherRejectionsFailTheLoadOnlyWhenRequired() {
+        MongoCollection<Document> collection = collection();
+        doThrow(bulkFailure(1, error(0, 11000)))
+            .doThrow(bulkFailure(0, error(0, 121), error(1, 11000)))
+            .when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+        BulkLoader.Result result = new BulkLoader(collection, 2, WriteConcern.MAJORITY, ChangeUnitMetrics.NOOP)
+            .load(documents(4));
+
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.duplicates()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThatThrownBy(result::requireOnlyDuplicates)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("rejected 1 document(s), first in batch 1");
+    }
+
+    @Test
+    void writeConcernFailureAbortsTheLoad() {
+        MongoCollection<Document> collection = collection();
+        doThrow(new MongoBulkWriteException(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of()), List.of(),
+                new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out", new BsonDocument()),
+                new ServerAddress()))
+            .when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+        BulkLoader loader = new BulkLoader(collection, 2, WriteConcern.MAJORITY, ChangeUnitMetrics.NOOP);
+
+        assertThatThrownBy(() -> loader.load(documents(4))).isInstanceOf(MongoBulkWriteException.class);
+        verify(collection, times(1)).insertMany(anyList(), any(InsertManyOptions.class));
+    }
+
+    @Test
+    void configuredWriteConcernNeverWeakensTheTemplates() {
+        MigrationProperties.BulkLoad settings = new MigrationProperties.BulkLoad();
+        settings.setWriteConcern("w1");
+        MongoCollection<Document> majority = collection();
+        when(majority.getWriteConcern()).thenReturn(WriteConcern.MAJORITY);
+        MongoCollection<Document> acknowledged = collection();
+        when(acknowledged.getWriteConcern()).thenReturn(WriteConcern.ACKNOWLEDGED);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollection("majority")).thenReturn(majority);
+        when(mongoTemplate.getCollection("acknowledged")).thenReturn(acknowledged);
+
+        new BulkLoader(mongoTemplate, "majority", settings, ChangeUnitMetrics.NOOP);
+        settings.setWriteConcern("journaled");
+        new BulkLoader(mongoTemplate, "acknowledged", settings, ChangeUnitMetrics.NOOP);
+
+        verify(majority).withWriteConcern(WriteConcern.MAJORITY);
+        verify(acknowledged).withWriteConcern(WriteConcern.JOURNALED);
+    }
+
+    @Test
+    void seedIdsAreStablePerKeyAndSortFirst() {
+        assertThat(BulkLoader.seedId("Laptop")).isEqualTo(BulkLoader.seedId("Laptop"));
+        assertThat(BulkLoader.seedId("Laptop")).isNotEqualTo(BulkLoader.seedId("Monitor"));
+        assertThat(BulkLoader.seedId("Laptop").getTimestamp()).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collection() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.withWriteConcern(any())).thenReturn(collection);
+        return collection;
+    }
+
+    private static Stream<Document> documents(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new Document("_id", i));
+    }
+
+    private static BulkWriteError error(int index, int code) {
+        return new BulkWriteError(code, "error " + code, new BsonDocument(), index);
+    }
+
+    private static MongoBulkWriteException bulkFailure(int inserted, BulkWriteError... errors) {
+        return new MongoBulkWriteException(BulkWriteResult.acknowledged(inserted, 0, 0, 0, List.of()),
+            List.of(errors), null, new ServerAddress());
+    }
+}
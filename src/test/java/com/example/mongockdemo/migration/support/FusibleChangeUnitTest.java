@@ -0,0 +1,120 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.migration.AddRatingFieldWithValidation;
+import com.example.mongockdemo.migration.UpdateElectronicsPrices;
+import io.mongock.api.annotations.ChangeUnit;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FusibleChangeUnitTest {
+
+    @Test
+    void adjacentUnitsWithTheSameOptionsAreFused() {
+        List<FusibleChangeUnit> group = new DefaultLeader()
+            .fusionGroup(List.of(DefaultLeader.class, DefaultFollower.class));
+
+        assertThat(types(group)).containsExactly(DefaultLeader.class, DefaultFollower.class);
+    }
+
+    @Test
+    void followerWithAnotherWriteConcernIsFused() {
+        List<FusibleChangeUnit> group = new DefaultLeader()
+            .fusionGroup(List.of(DefaultLeader.class, W1Follower.class));
+
+        assertThat(types(group)).containsExactly(DefaultLeader.class, W1Follower.class);
+    }
+
+    @Test
+    void followerWithAnotherReadPreferenceRunsItsOwnPass() {
+        List<FusibleChangeUnit> group = new DefaultLeader()
+            .fusionGroup(List.of(DefaultLeader.class, SecondaryFollower.class));
+
+        assertThat(types(group)).containsExactly(DefaultLeader.class);
+    }
+
+    @Test
+    void electronicsPricesAndRatingBackfillAreFusedInTheBackgroundRun() {
+        // With background migrations the blocking 004 and 005 run first, leaving 003 and 006 adjacent
+        List<FusibleChangeUnit> group = new UpdateElectronicsPrices()
+            .fusionGroup(List.of(UpdateElectronicsPrices.class, AddRatingFieldWithValidation.class));
+
+        assertThat(types(group)).containsExactly(UpdateElectronicsPrices.class, AddRatingFieldWithValidation.class);
+    }
+
+    @Test
+    void followerFilteringOnAFieldTheLeaderWritesIsNotFused() {
+        List<FusibleChangeUnit> group = new DefaultLeader()
+            .fusionGroup(List.of(DefaultLeader.class, DependentFollower.class));
+
+        assertThat(types(group)).containsExactly(DefaultLeader.class);
+    }
+
+    private static List<Class<?>> types(List<FusibleChangeUnit> group) {
+        return group.stream().<Class<?>>map(Object::getClass).toList();
+    }
+
+    abstract static class TestUnit extends FusibleChangeUnit {
+
+        @Override
+        public String collection() {
+            return "products";
+        }
+
+        @Override
+        public Document filter() {
+            return new Document();
+        }
+
+        @Override
+        public Set<String> reads() {
+            return Set.of();
+        }
+
+        @Override
+        public Document transform(Document document) {
+            return new Document();
+        }
+    }
+
+    @ChangeUnit(id = "leader", order = "1", author = "test")
+    static class DefaultLeader extends TestUnit {
+
+        @Override
+        public Set<String> writes() {
+            return Set.of("a");
+        }
+    }
+
+    @ChangeUnit(id = "follower", order = "2", author = "test")
+    static class DefaultFollower extends TestUnit {
+
+        @Override
+        public Set<String> writes() {
+            return Set.of("b");
+        }
+    }
+
+    @ChangeUnitOptions(writeConcern = "w1")
+    @ChangeUnit(id = "w1-follower", order = "2", author = "test")
+    static class W1Follower extends DefaultFollower {
+    }
+
+    @ChangeUnitOptions(readPreference = "secondaryPreferred")
+    @ChangeUnit(id = "secondary-follower", order = "2", author = "test")
+    static class SecondaryFollower extends DefaultFollower {
+    }
+
+    @ChangeUnit(id = "dependent-follower", order = "2", author = "test")
+    static class DependentFollower extends DefaultFollower {
+
+        @Override
+        public Document filter() {
+            return new Document("a", new Document("$exists", false));
+        }
+    }
+}
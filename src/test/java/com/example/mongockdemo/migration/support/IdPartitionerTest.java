@@ -0,0 +1,69 @@
+package com.example.mongockdemo.migration.support;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IdPartitionerTest {
+
+    @Test
+    void singlePartitionNeedsNoBoundaries() {
+        MongoCollection<Document> collection = collection(List.of());
+
+        assertThat(IdPartitioner.boundaries(collection, 1)).isEmpty();
+        verifyNoInteractions(collection);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void innerBucketMaximaBecomeTheBoundaries() {
+        MongoCollection<Document> collection = collection(List.of(bucket(0, 10), bucket(10, 20), bucket(20, 31)));
+
+        assertThat(IdPartitioner.boundaries(collection, 3)).containsExactly(10, 20);
+
+        ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(collection).aggregate(pipeline.capture());
+        assertThat(pipeline.getValue().get(0)).isEqualTo(new Document("$sample", new Document("size", 300)));
+        assertThat(pipeline.getValue().get(2).get("$bucketAuto", Document.class).get("buckets")).isEqualTo(3);
+    }
+
+    @Test
+    void fewerBucketsThanRequestedGiveFewerBoundaries() {
+        // $bucketAuto returns fewer buckets when the sample has fewer distinct _ids
+        MongoCollection<Document> collection = collection(List.of(bucket(0, 5)));
+
+        assertThat(IdPartitioner.boundaries(collection, 4)).isEmpty();
+    }
+
+    private static Document bucket(Object min, Object max) {
+        return new Document("_id", new Document("min", min).append("max", max)).append("count", 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collection(List<Document> buckets) {
+        AggregateIterable<Document> aggregate = mock(AggregateIterable.class);
+        when(aggregate.allowDiskUse(anyBoolean())).thenReturn(aggregate);
+        when(aggregate.into(any(Collection.class))).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            target.addAll(buckets);
+            return target;
+        });
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.aggregate(anyList())).thenReturn(aggregate);
+        return collection;
+    }
+}
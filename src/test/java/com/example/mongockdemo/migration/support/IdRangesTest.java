@@ -0,0 +1,69 @@
+package com.example.mongockdemo.migration.support;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdRangesTest {
+
+    @Test
+    void rangeIsHalfOpenAndLeavesNullBoundsOpen() {
+        ObjectId lower = new ObjectId();
+        ObjectId upper = new ObjectId();
+
+        assertThat(IdRanges.range(null, null)).isEmpty();
+        assertThat(IdRanges.range(lower, null)).isEqualTo(new Document("_id", new Document("$gt", lower)));
+        assertThat(IdRanges.range(null, upper)).isEqualTo(new Document("_id", new Document("$lte", upper)));
+        assertThat(IdRanges.range(lower, upper))
+            .isEqualTo(new Document("_id", new Document("$gt", lower).append("$lte", upper)));
+    }
+
+    @Test
+    void upperBoundIsTheLastIdOfTheChunk() {
+        ObjectId lower = new ObjectId();
+        ObjectId boundary = new ObjectId();
+        FindIterable<Document> find = find(new Document("_id", boundary));
+        MongoCollection<Document> collection = collection(find);
+
+        assertThat(IdRanges.upperBound(collection, lower, 500)).isEqualTo(boundary);
+        verify(collection).find(IdRanges.range(lower, null));
+        verify(find).sort(new Document("_id", 1));
+        verify(find).skip(499);
+        verify(find).limit(1);
+    }
+
+    @Test
+    void upperBoundIsNullWhenFewerDocumentsRemain() {
+        MongoCollection<Document> collection = collection(find(null));
+
+        assertThat(IdRanges.upperBound(collection, null, new ObjectId(), 500)).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FindIterable<Document> find(Document first) {
+        FindIterable<Document> find = mock(FindIterable.class);
+        when(find.projection(any(Bson.class))).thenReturn(find);
+        when(find.sort(any(Bson.class))).thenReturn(find);
+        when(find.skip(anyInt())).thenReturn(find);
+        when(find.limit(anyInt())).thenReturn(find);
+        when(find.first()).thenReturn(first);
+        return find;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collection(FindIterable<Document> find) {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.find(any(Bson.class))).thenReturn(find);
+        return collection;
+    }
+}
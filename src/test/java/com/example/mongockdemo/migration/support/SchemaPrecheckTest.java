@@ -0,0 +1,70 @@
+package com.example.mongockdemo.migration.support;
+
+import com.example.mongockdemo.config.MigrationProperties;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SchemaPrecheckTest {
+
+    private static final Document SCHEMA = new Document("required", List.of("rating"));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void quarantineOnlyDeletesTheIdsThatWereCopied() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MongoCollection<Document> products = mock(MongoCollection.class);
+        MongoCollection<Document> quarantine = mock(MongoCollection.class);
+        when(mongoTemplate.getCollection("products")).thenReturn(products);
+        when(mongoTemplate.getCollection("products_quarantine")).thenReturn(quarantine);
+
+        AggregateIterable<Document> aggregate = mock(AggregateIterable.class);
+        when(products.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.first()).thenReturn(new Document("count", List.of(new Document("n", 2)))
+            .append("sample", List.of()));
+
+        FindIterable<Document> find = mock(FindIterable.class);
+        when(quarantine.find(any(Document.class))).thenReturn(find);
+        when(find.projection(any())).thenReturn(find);
+        when(find.batchSize(anyInt())).thenReturn(find);
+        MongoCursor<Document> copied = cursor(List.of(new Document("_id", 1), new Document("_id", 2)));
+        when(find.iterator()).thenReturn(copied);
+        when(products.deleteMany(any())).thenReturn(DeleteResult.acknowledged(2));
+
+        MigrationProperties.SchemaPrecheck settings = new MigrationProperties.SchemaPrecheck();
+        settings.setAction(MigrationProperties.SchemaPrecheck.Action.QUARANTINE);
+        settings.setMaxViolations(10);
+        SchemaPrecheck.enforce(mongoTemplate, "products", SCHEMA, settings);
+
+        ArgumentCaptor<Document> copiedBy = ArgumentCaptor.forClass(Document.class);
+        verify(quarantine).find(copiedBy.capture());
+        assertThat(copiedBy.getValue()).containsOnlyKeys(SchemaPrecheck.QUARANTINE_RUN);
+        verify(products).deleteMany(SchemaPrecheck.quarantinedViolators(List.of(1, 2), SCHEMA));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCursor<Document> cursor(List<Document> documents) {
+        Iterator<Document> iterator = documents.iterator();
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
+    }
+}
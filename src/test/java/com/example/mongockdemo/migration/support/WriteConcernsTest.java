@@ -0,0 +1,21 @@
+package com.example.mongockdemo.migration.support;
+
+import com.mongodb.WriteConcern;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteConcernsTest {
+
+    @Test
+    void moreAcknowledgingMembersWinThenJournaling() {
+        assertThat(WriteConcerns.stricter(WriteConcern.W1, WriteConcern.MAJORITY)).isEqualTo(WriteConcern.MAJORITY);
+        assertThat(WriteConcerns.stricter(WriteConcern.W3, WriteConcern.MAJORITY)).isEqualTo(WriteConcern.MAJORITY);
+        assertThat(WriteConcerns.stricter(WriteConcern.W2, WriteConcern.JOURNALED)).isEqualTo(WriteConcern.W2);
+        assertThat(WriteConcerns.stricter(WriteConcern.W1, WriteConcern.JOURNALED)).isEqualTo(WriteConcern.JOURNALED);
+        assertThat(WriteConcerns.stricter(WriteConcern.UNACKNOWLEDGED, WriteConcern.ACKNOWLEDGED))
+            .isEqualTo(WriteConcern.ACKNOWLEDGED);
+        // The server default counts as w:1, so the first of two equal ones is kept
+        assertThat(WriteConcerns.stricter(WriteConcern.ACKNOWLEDGED, WriteConcern.W1)).isEqualTo(WriteConcern.ACKNOWLEDGED);
+    }
+}
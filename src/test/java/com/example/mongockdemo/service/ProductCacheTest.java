@@ -0,0 +1,122 @@
+package com.example.mongockdemo.service;
+
+import com.example.mongockdemo.config.CatalogCacheProperties;
+import com.example.mongockdemo.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> loads = new ArrayList<>();
+
+    @Test
+    void leastRecentlyReadEntryOfAFullStripeIsEvicted() {
+        // 32 entries over 16 stripes: two per stripe
+        ProductCache cache = cache(32, Duration.ofHours(1), Duration.ofHours(1));
+        List<String> ids = sameStripe(3);
+
+        cache.get(ids.get(0), this::found);
+        cache.get(ids.get(1), this::found);
+        cache.get(ids.get(0), this::found);
+        cache.get(ids.get(2), this::found);
+        cache.get(ids.get(0), this::found);
+        cache.get(ids.get(1), this::found);
+
+        assertThat(loads).containsExactly(ids.get(0), ids.get(1), ids.get(2), ids.get(1));
+        assertThat(registry.get("cache.evictions").counter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tag("result", "hit").counter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(4);
+        assertThat(registry.get("cache.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void notFoundIsCachedForTheNegativeTtlOnly() {
+        ProductCache cache = cache(100, Duration.ofHours(1), Duration.ZERO);
+
+        assertThat(cache.get("a", this::found)).isPresent();
+        assertThat(cache.get("a", this::found)).isPresent();
+        assertThat(cache.get("missing", this::notFound)).isEmpty();
+        assertThat(cache.get("missing", this::notFound)).isEmpty();
+
+        assertThat(loads).containsExactly("a", "missing", "missing");
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        ProductCache cache = cache(100, Duration.ZERO, Duration.ofHours(1));
+
+        cache.get("a", this::found);
+        cache.get("a", this::found);
+
+        assertThat(loads).containsExactly("a", "a");
+    }
+
+    @Test
+    void readOvertakenByAnInvalidationIsNotCached() {
+        ProductCache cache = cache(100, Duration.ofHours(1), Duration.ofHours(1));
+        // The write lands (and invalidates) while the read is still loading the old version
+        Function<String, Optional<Product>> racingLoader = id -> {
+            cache.invalidate(id);
+            return found(id);
+        };
+
+        cache.get("a", racingLoader);
+        cache.get("a", this::found);
+        cache.get("a", this::found);
+
+        assertThat(loads).containsExactly("a", "a");
+    }
+
+    @Test
+    void invalidationDropsEntries() {
+        ProductCache cache = cache(100, Duration.ofHours(1), Duration.ofHours(1));
+        cache.get("a", this::found);
+        cache.get("b", this::found);
+
+        cache.invalidate("a");
+        cache.get("a", this::found);
+        cache.get("b", this::found);
+        cache.invalidateAll();
+        cache.get("b", this::found);
+
+        assertThat(loads).containsExactly("a", "b", "a", "b");
+    }
+
+    private ProductCache cache(int maxSize, Duration ttl, Duration negativeTtl) {
+        CatalogCacheProperties properties = new CatalogCacheProperties();
+        properties.getProducts().setMaxSize(maxSize);
+        properties.getProducts().setTtl(ttl);
+        properties.getProducts().setNegativeTtl(negativeTtl);
+        return new ProductCache(properties, registry);
+    }
+
+    private Optional<Product> found(String id) {
+        loads.add(id);
+        Product product = new Product();
+        product.setId(id);
+        return Optional.of(product);
+    }
+
+    private Optional<Product> notFound(String id) {
+        loads.add(id);
+        return Optional.empty();
+    }
+
+    private static List<String> sameStripe(int count) {
+        return IntStream.iterate(0, i -> i + 1)
+            .mapToObj(i -> "id-" + i)
+            .filter(id -> Math.floorMod(id.hashCode(), 16) == 0)
+            .limit(count)
+            .toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.mongockdemo.service;
+
+import com.example.mongockdemo.config.SuggestProperties;
+import com.example.mongockdemo.model.Product;
+import com.example.mongockdemo.model.ProductSuggestion;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final SuggestProperties properties = new SuggestProperties();
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void buildEmptyIndex() throws InterruptedException {
+        index = new ProductSearchIndex(emptyProducts(), properties);
+        index.rebuild();
+        for (int i = 0; i < 500 && !index.isReady(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(index.isReady()).isTrue();
+    }
+
+    @AfterEach
+    void stopBuilder() {
+        index.destroy();
+    }
+
+    @Test
+    void lastWordIsAPrefixRangeOfTheDictionary() {
+        index.put("1", "Office Chair", null);
+        index.put("2", "Office Chandelier", null);
+        index.put("3", "Office Desk", null);
+        index.put("4", "Charger", null);
+
+        assertThat(ids("office ch")).containsExactlyInAnyOrder("1", "2");
+        assertThat(ids("ch")).containsExactlyInAnyOrder("1", "2", "4");
+        // A trailing separator makes the last word complete
+        assertThat(ids("office ch ")).isEmpty();
+        assertThat(ids("office chair ")).containsExactly("1");
+        // Prefixes are not stemmed
+        assertThat(ids("chairs")).isEmpty();
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        index.put("1", "Standing Desk", "Height adjustable");
+        index.put("2", "Monitor Arm", "Clamps to any desk");
+        index.put("3", "Desk", "Solid oak");
+
+        // Both name matches first, the shorter name ahead; then the description match
+        assertThat(ids("des")).containsExactly("3", "1", "2");
+        assertThat(ids("desk clamps")).containsExactly("2");
+    }
+
+    @Test
+    void descriptionsAreNotIndexedWhenDisabled() {
+        properties.setIndexDescription(false);
+        index.put("1", "Monitor Arm", "Clamps to any desk");
+
+        assertThat(ids("desk")).isEmpty();
+        assertThat(ids("arm")).containsExactly("1");
+    }
+
+    @Test
+    void changedAndRemovedProductsNoLongerMatch() {
+        index.put("1", "Office Chair", null);
+        index.put("2", "Office Lamp", null);
+
+        index.put("1", "Office Stool", null);
+        index.remove("2");
+
+        assertThat(ids("chair")).isEmpty();
+        assertThat(ids("lamp")).isEmpty();
+        assertThat(ids("office")).containsExactly("1");
+        assertThat(index.deadOrdinals()).isEqualTo(2);
+    }
+
+    @Test
+    void deadOrdinalsAreCompactedOnceAQuarterOfTheIndex() {
+        List<String> ids = IntStream.range(0, 1000).mapToObj(i -> "p" + i).toList();
+        ids.forEach(id -> index.put(id, "Lamp " + id, "Warm white"));
+        // One rewrite short of the minimum; the next one makes 1024 of 2023 ordinals dead
+        for (int i = 0; i < ProductSearchIndex.COMPACT_MIN_DEAD - 1; i++) {
+            index.put(ids.get(i % ids.size()), "Lamp " + ids.get(i % ids.size()), "Warm white");
+        }
+        assertThat(index.deadOrdinals()).isEqualTo(ProductSearchIndex.COMPACT_MIN_DEAD - 1);
+
+        index.put("p999", "Desk p999", "Warm white");
+
+        assertThat(index.deadOrdinals()).isZero();
+        // Renumbered ordinals still resolve to their products, with their name and description terms
+        assertThat(ids("p42 ")).containsExactly("p42");
+        assertThat(ids("desk")).containsExactly("p999");
+        assertThat(ids("lamp p999")).isEmpty();
+        assertThat(index.suggest("warm whi", 50)).hasSize(50);
+        index.put("p1000", "Lamp p1000", null);
+        assertThat(ids("p1000")).containsExactly("p1000");
+    }
+
+    private List<String> ids(String query) {
+        return index.suggest(query, 50).stream().map(ProductSuggestion::id).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoTemplate emptyProducts() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        FindIterable<Document> find = mock(FindIterable.class);
+        when(mongoTemplate.getCollectionName(Product.class)).thenReturn("products");
+        when(mongoTemplate.getCollection("products")).thenReturn(collection);
+        when(collection.find()).thenReturn(find);
+        when(find.projection(any())).thenReturn(find);
+        when(find.batchSize(anyInt())).thenReturn(find);
+        when(find.iterator()).thenReturn(mock(MongoCursor.class));
+        return mongoTemplate;
+    }
+}
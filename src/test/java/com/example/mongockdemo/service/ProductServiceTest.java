@@ -0,0 +1,81 @@
+package com.example.mongockdemo.service;
+
+import com.example.mongockdemo.config.ExportProperties;
+import com.example.mongockdemo.migration.runner.MigrationStatus;
+import com.example.mongockdemo.model.Product;
+import com.example.mongockdemo.model.ProductPage;
+import com.example.mongockdemo.repository.ProductRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final ProductService service = new ProductService(repository, mock(MigrationStatus.class),
+        new ExportProperties(), mock(CategoryCache.class), mock(ProductCache.class), mock(ProductSearchIndex.class));
+
+    @Test
+    void fullPageFetchesOneExtraRowAndPointsTheCursorAtItsLastItem() {
+        List<Product> rows = products(4);
+        when(repository.findAllByOrderByIdAsc(Limit.of(4))).thenReturn(rows);
+
+        ProductPage page = service.getProducts(null, null, 3);
+
+        assertThat(page.items()).containsExactlyElementsOf(rows.subList(0, 3));
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.nextCursor()).isEqualTo(rows.get(2).getId());
+    }
+
+    @Test
+    void cursorIsPassedBackAsTheExclusiveLowerBound() {
+        String after = new ObjectId().toHexString();
+        List<Product> rows = products(2);
+        when(repository.findByCategoryAndIdGreaterThanOrderByIdAsc("Office", after, Limit.of(4))).thenReturn(rows);
+
+        ProductPage page = service.getProducts("Office", after, 3);
+
+        assertThat(page.items()).containsExactlyElementsOf(rows);
+        assertThat(page.hasNext()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void limitIsClampedAndDefaulted() {
+        when(repository.findAllByOrderByIdAsc(any())).thenReturn(List.of());
+
+        service.getProducts(null, null, 0);
+        verify(repository).findAllByOrderByIdAsc(Limit.of(2));
+        service.getProducts("", null, 10_000);
+        verify(repository).findAllByOrderByIdAsc(Limit.of(ProductService.MAX_PAGE_SIZE + 1));
+        service.getProducts(null, null, null);
+        verify(repository).findAllByOrderByIdAsc(Limit.of(ProductService.DEFAULT_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void cursorThatIsNotAnObjectIdIsRejected() {
+        assertThatThrownBy(() -> service.getProducts(null, "not-a-cursor", 10))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("not-a-cursor");
+        verifyNoInteractions(repository);
+    }
+
+    private static List<Product> products(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Product product = new Product();
+            product.setId(new ObjectId().toHexString());
+            return product;
+        }).toList();
+    }
+}